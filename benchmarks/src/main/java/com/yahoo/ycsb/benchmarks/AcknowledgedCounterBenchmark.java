@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.yahoo.ycsb.generator.AcknowledgedCounterGenerator;
+
+/**
+ * Measures inserts that take a key from an AcknowledgedCounterGenerator and acknowledge it, with all threads
+ * sharing one generator.
+ *
+ * The thread count is set with -t. The main method runs the benchmark for 1 to 128 threads:
+ * java -cp benchmarks/target/benchmarks.jar com.yahoo.ycsb.benchmarks.AcknowledgedCounterBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AcknowledgedCounterBenchmark {
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64, 128};
+
+  private AcknowledgedCounterGenerator generator;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    generator = new AcknowledgedCounterGenerator(0);
+  }
+
+  @Benchmark
+  public long insert() {
+    long value = generator.nextValue();
+    generator.acknowledge(value);
+    return generator.lastValue();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int threads : THREADS) {
+      new Runner(new OptionsBuilder()
+          .include(AcknowledgedCounterBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.yahoo.ycsb.Utils;
+import com.yahoo.ycsb.workloads.KeyBuffer;
+import com.yahoo.ycsb.workloads.MultiTableSupport;
+
+/**
+ * Compares building keys by String concatenation, as MultiTableSupport did before, with encoding
+ * them into a {@link KeyBuffer}. Run with -prof gc to see the allocation rate of each path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyEncodingBenchmark {
+  private static final String TABLE = "comment";
+
+  @Param({"hashed", "ordered"})
+  private String insertorder;
+
+  private MultiTableSupport multiTable;
+  private boolean hashed;
+  private int zeropadding;
+  private long keynum;
+
+  @Setup
+  public void setup() {
+    Properties p = new Properties();
+    p.setProperty("models", "[" + TABLE + "]");
+    p.setProperty(MultiTableSupport.INSERT_ORDER_PROPERTY, insertorder);
+    multiTable = new MultiTableSupport(p);
+    hashed = "hashed".equals(insertorder);
+    zeropadding = Integer.parseInt(p.getProperty(MultiTableSupport.ZERO_PADDING_PROPERTY,
+        MultiTableSupport.ZERO_PADDING_PROPERTY_DEFAULT));
+  }
+
+  // The key building of MultiTableSupport before keys were encoded into a KeyBuffer.
+  private static String legacyKeyName(long keynum, String table, boolean hashed, int zeropadding) {
+    if (hashed) {
+      keynum = Utils.hash(keynum);
+    }
+    String value = Long.toString(keynum);
+    int fill = zeropadding - value.length();
+    String prekey = table;
+    for (int i = 0; i < fill; i++) {
+      prekey += '0';
+    }
+    return prekey + value;
+  }
+
+  @Benchmark
+  public String legacy() {
+    return legacyKeyName(keynum++, TABLE, hashed, zeropadding);
+  }
+
+  @Benchmark
+  public String buildKeyName() {
+    return multiTable.buildKeyName(keynum++, TABLE);
+  }
+
+  @Benchmark
+  public void encodeKey(Blackhole blackhole) {
+    KeyBuffer key = multiTable.encodeKey(keynum++, TABLE);
+    blackhole.consume(key.array());
+    blackhole.consume(key.length());
+  }
+}
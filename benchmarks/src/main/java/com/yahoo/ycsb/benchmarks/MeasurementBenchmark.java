@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * Measures what DBWrapper records per operation, the latency and the status, with all threads recording into
+ * the same measurement, for every measurement type.
+ *
+ * The thread count is set with -t. The main method runs the benchmark for 1 to 128 threads:
+ * java -cp benchmarks/target/benchmarks.jar com.yahoo.ycsb.benchmarks.MeasurementBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeasurementBenchmark {
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64, 128};
+
+  @Param({"histogram", "hdrhistogram", "hdrhistogram+histogram", "hdrhistogram+raw", "timeseries", "raw"})
+  private String measurementType;
+
+  private Measurements.Handle handle;
+
+  // The raw measurements keep every value, so they start over with every iteration.
+  @Setup(Level.Iteration)
+  public void setup() {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, measurementType);
+    handle = new Measurements(props).getHandle("READ");
+  }
+
+  @Benchmark
+  public void measure() {
+    handle.measure(ThreadLocalRandom.current().nextInt(100, 10000));
+    handle.reportStatus(Status.OK);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int threads : THREADS) {
+      new Runner(new OptionsBuilder()
+          .include(MeasurementBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yahoo.ycsb.webservice.graphql.PayloadGenerator;
+import com.yahoo.ycsb.webservice.graphql.RequestBuffer;
+
+/**
+ * Compares writing the random strings of ${rand:length} slots one letter per random number, as GraphQLTemplate
+ * did before, with the {@link PayloadGenerator}s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+  @Param({"200", "4096"})
+  private int length;
+
+  private final RequestBuffer out = new RequestBuffer();
+
+  @Benchmark
+  public RequestBuffer perLetter() {
+    out.reset();
+    int offset = out.claim(length);
+    byte[] buf = out.array();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < length; i++) {
+      buf[offset + i] = (byte) ('A' + random.nextInt(26));
+    }
+    return out;
+  }
+
+  @Benchmark
+  public RequestBuffer block() {
+    out.reset();
+    PayloadGenerator.BLOCK.write(out, length);
+    return out;
+  }
+
+  @Benchmark
+  public RequestBuffer unique() {
+    out.reset();
+    PayloadGenerator.UNIQUE.write(out, length);
+    return out;
+  }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The arrivals of operations at a global target rate, independent of how long earlier operations take.
+ *
+ * The client threads form the worker pool of the run: each one takes the next arrival, waits until it is due
+ * and executes an operation with the arrival as its intended start time. When the database falls behind, all
+ * workers are busy and the arrivals pile up; the workers then start the overdue operations right away, and their
+ * response time includes the time they waited. Unlike the per thread throttling of a closed loop, the client
+ * does not back off under overload, so the measured latency does not omit the operations it would have delayed.
+ */
+public final class ArrivalProcess {
+  /**
+   * How operations arrive: closed (every client thread throttles itself to its share of the target), constant
+   * (at a fixed interval) or poisson (at exponentially distributed intervals). The open arrival processes
+   * require a target.
+   */
+  public static final String ARRIVAL_PROCESS_PROPERTY = "arrival.process";
+  public static final String ARRIVAL_PROCESS_PROPERTY_DEFAULT = "closed";
+
+  private static final long UNSTARTED = Long.MIN_VALUE;
+
+  private final boolean poisson;
+  private final double intervalNanos;
+  // The next arrival, in System.nanoTime(), or UNSTARTED until the first one is taken.
+  private final AtomicLong next = new AtomicLong(UNSTARTED);
+
+  /**
+   * @param poisson True for exponentially distributed intervals, false for a constant interval.
+   * @param opsPerSecond The target rate of all arrivals.
+   */
+  public ArrivalProcess(boolean poisson, double opsPerSecond) {
+    if (opsPerSecond <= 0) {
+      throw new IllegalArgumentException("an open arrival process requires a target rate, got " + opsPerSecond);
+    }
+    this.poisson = poisson;
+    this.intervalNanos = 1e9 / opsPerSecond;
+  }
+
+  /**
+   * Creates the arrival process of a run.
+   *
+   * @param props The properties of the run.
+   * @param target The target number of operations per second of the run.
+   * @return The arrival process, or null if the client threads throttle themselves.
+   * @throws IllegalArgumentException If the arrival process is unknown or lacks a target.
+   */
+  public static ArrivalProcess create(Properties props, int target) {
+    String process = props.getProperty(ARRIVAL_PROCESS_PROPERTY, ARRIVAL_PROCESS_PROPERTY_DEFAULT);
+    switch (process) {
+    case "closed":
+      return null;
+    case "constant":
+      return new ArrivalProcess(false, target);
+    case "poisson":
+      return new ArrivalProcess(true, target);
+    default:
+      throw new IllegalArgumentException("unknown " + ARRIVAL_PROCESS_PROPERTY + "=" + process);
+    }
+  }
+
+  /**
+   * Takes the next arrival. The first arrival is the time it was taken, so the set up of the client threads
+   * does not count as delay.
+   *
+   * @return The time the operation is due, in System.nanoTime(); it is in the past if the workers fell behind.
+   */
+  public long nextArrivalNanos() {
+    long interval = poisson
+        ? (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * intervalNanos)
+        : (long) intervalNanos;
+    while (true) {
+      long arrival = next.get();
+      if (arrival == UNSTARTED) {
+        next.compareAndSet(UNSTARTED, System.nanoTime());
+      } else if (next.compareAndSet(arrival, arrival + interval)) {
+        return arrival;
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link DB} that can keep several operations in flight from a single client thread.
+ *
+ * When the async.inflight property is greater than one, the client thread submits operations through
+ * the *Async methods and only waits once that many operations are outstanding. The returned futures
+ * complete with the status of the operation once the database has answered; they should not complete
+ * exceptionally. Result containers passed to reads and scans are filled by the time the future completes.
+ *
+ * By default every asynchronous method runs its blocking counterpart and returns a completed future,
+ * so implementations only override the operations they can actually perform without blocking.
+ */
+public abstract class AsyncDB extends DB {
+
+  /**
+   * Asynchronously read a record from the database.
+   *
+   * @see DB#read(String, String, Set, Map)
+   */
+  public CompletableFuture<Status> readAsync(String table, String key, Set<String> fields,
+                                             Map<String, ByteIterator> result) {
+    return CompletableFuture.completedFuture(read(table, key, fields, result));
+  }
+
+  /**
+   * Asynchronously perform a range scan for a set of records in the database.
+   *
+   * @see DB#scan(String, String, int, Set, Vector)
+   */
+  public CompletableFuture<Status> scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                             Vector<HashMap<String, ByteIterator>> result) {
+    return CompletableFuture.completedFuture(scan(table, startkey, recordcount, fields, result));
+  }
+
+  /**
+   * Asynchronously update a record in the database.
+   *
+   * @see DB#update(String, String, Map)
+   */
+  public CompletableFuture<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+    return CompletableFuture.completedFuture(update(table, key, values));
+  }
+
+  /**
+   * Asynchronously insert a record in the database.
+   *
+   * @see DB#insert(String, String, Map)
+   */
+  public CompletableFuture<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+    return CompletableFuture.completedFuture(insert(table, key, values));
+  }
+
+  /**
+   * Asynchronously delete a record from the database.
+   *
+   * @see DB#delete(String, String)
+   */
+  public CompletableFuture<Status> deleteAsync(String table, String key) {
+    return CompletableFuture.completedFuture(delete(table, key));
+  }
+}
@@ -117,6 +117,13 @@ public final class Client {
    */
   public static final String THREAD_COUNT_PROPERTY = "threadcount";
 
+  /**
+   * How the YCSB client threads are run: "platform" runs each of them on its own OS thread,
+   * "virtual" runs them as virtual threads, which requires Java 21 or newer.
+   */
+  public static final String THREAD_MODEL_PROPERTY = "threadmodel";
+  public static final String THREAD_MODEL_PROPERTY_DEFAULT = "platform";
+
   /**
    * Indicates how many inserts to do if less than recordcount.
    * Useful for partitioning the load among multiple servers if the client is the bottleneck.
@@ -125,7 +132,8 @@ public final class Client {
   public static final String INSERT_COUNT_PROPERTY = "insertcount";
 
   /**
-   * Target number of operations per second.
+   * Target number of operations per second. How the operations are spread over time is set by
+   * {@link ArrivalProcess#ARRIVAL_PROCESS_PROPERTY}.
    */
   public static final String TARGET_PROPERTY = "target";
 
@@ -286,10 +294,12 @@ public final class Client {
     int threadcount = Integer.parseInt(props.getProperty(THREAD_COUNT_PROPERTY, "1"));
     String dbname = props.getProperty(DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
     int target = Integer.parseInt(props.getProperty(TARGET_PROPERTY, "0"));
+    boolean virtualThreads = useVirtualThreads(props);
 
     //compute the target throughput
     double targetperthreadperms = -1;
-    if (target > 0) {
+    ArrivalProcess arrivals = getArrivalProcess(props, target);
+    if (arrivals == null && target > 0) {
       double targetperthread = ((double) target) / ((double) threadcount);
       targetperthreadperms = targetperthread / 1000.0;
     }
@@ -310,6 +320,9 @@ public final class Client {
 
     final List<ClientThread> clients = initDb(dbname, props, threadcount, targetperthreadperms,
         workload, tracer, completeLatch);
+    for (ClientThread client : clients) {
+      client.setArrivalProcess(arrivals);
+    }
 
     if (status) {
       boolean standardstatus = false;
@@ -332,8 +345,11 @@ public final class Client {
     try (final TraceScope span = tracer.newScope(CLIENT_WORKLOAD_SPAN)) {
 
       final Map<Thread, ClientThread> threads = new HashMap<>(threadcount);
+      int threadid = 0;
       for (ClientThread client : clients) {
-        threads.put(new Thread(tracer.wrap(client, "ClientThread")), client);
+        Runnable task = tracer.wrap(client, "ClientThread");
+        String name = "ClientThread-" + threadid++;
+        threads.put(virtualThreads ? VirtualThreads.newThread(task, name) : new Thread(task, name), client);
       }
 
       st = System.currentTimeMillis();
@@ -400,6 +416,40 @@ public final class Client {
     System.exit(0);
   }
 
+  private static boolean useVirtualThreads(Properties props) {
+    String threadmodel = props.getProperty(THREAD_MODEL_PROPERTY, THREAD_MODEL_PROPERTY_DEFAULT);
+    if (threadmodel.equals("platform")) {
+      return false;
+    }
+    if (!threadmodel.equals("virtual")) {
+      System.err.println("Unknown " + THREAD_MODEL_PROPERTY + " '" + threadmodel + "', expected platform or virtual.");
+      System.exit(-1);
+    }
+    if (!VirtualThreads.isSupported()) {
+      System.err.println(THREAD_MODEL_PROPERTY + "=virtual requires Java 21 or newer, running on Java " +
+          System.getProperty("java.version") + ".");
+      System.exit(-1);
+    }
+    return true;
+  }
+
+  private static ArrivalProcess getArrivalProcess(Properties props, int target) {
+    ArrivalProcess arrivals;
+    try {
+      arrivals = ArrivalProcess.create(props, target);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(-1);
+      return null;
+    }
+    // Open loop runs measure the response time from the arrival next to the service time, unless configured
+    // otherwise.
+    if (arrivals != null && props.getProperty(Measurements.MEASUREMENT_INTERVAL) == null) {
+      props.setProperty(Measurements.MEASUREMENT_INTERVAL, "both");
+    }
+    return arrivals;
+  }
+
   private static List<ClientThread> initDb(String dbname, Properties props, int threadcount,
                                            double targetperthreadperms, Workload workload, Tracer tracer,
                                            CountDownLatch completeLatch) {
@@ -27,10 +27,18 @@ import java.util.concurrent.locks.LockSupport;
  * A thread for executing transactions or data inserts to the database.
  */
 public class ClientThread implements Runnable {
+  /**
+   * The maximum number of operations a client thread keeps in flight. Values greater than one require a DB
+   * that extends {@link AsyncDB}.
+   */
+  public static final String ASYNC_INFLIGHT_PROPERTY = "async.inflight";
+  public static final String ASYNC_INFLIGHT_PROPERTY_DEFAULT = "1";
+
   // Counts down each of the clients completing.
   private final CountDownLatch completeLatch;
 
   private static boolean spinSleep;
+  private boolean yieldWhileSpinning;
   private DB db;
   private boolean dotransactions;
   private Workload workload;
@@ -43,6 +51,8 @@ public class ClientThread implements Runnable {
   private Object workloadstate;
   private Properties props;
   private long targetOpsTickNs;
+  private int asyncInflight;
+  private ArrivalProcess arrivals;
   private final Measurements measurements;
 
   /**
@@ -70,6 +80,7 @@ public class ClientThread implements Runnable {
     this.props = props;
     measurements = Measurements.getMeasurements();
     spinSleep = Boolean.valueOf(this.props.getProperty("spin.sleep", "false"));
+    asyncInflight = Integer.parseInt(this.props.getProperty(ASYNC_INFLIGHT_PROPERTY, ASYNC_INFLIGHT_PROPERTY_DEFAULT));
     this.completeLatch = completeLatch;
   }
 
@@ -81,12 +92,23 @@ public class ClientThread implements Runnable {
     threadcount = threadCount;
   }
 
+  /**
+   * Let the thread take its operations from arrivals shared by all client threads, instead of throttling
+   * itself to a target.
+   */
+  public void setArrivalProcess(final ArrivalProcess arrivalProcess) {
+    arrivals = arrivalProcess;
+  }
+
   public int getOpsDone() {
     return opsdone;
   }
 
   @Override
   public void run() {
+    // A spinning virtual thread would keep its carrier thread from running other client threads.
+    yieldWhileSpinning = VirtualThreads.isVirtual(Thread.currentThread());
+
     try {
       db.init();
     } catch (DBException e) {
@@ -103,6 +125,20 @@ public class ClientThread implements Runnable {
       return;
     }
 
+    // With more than one operation in flight the workload submits through the pipeline and only blocks
+    // once the limit is reached; the DBWrapper measures every operation when it completes.
+    DB target = db;
+    PipelinedDB pipeline = null;
+    if (asyncInflight > 1) {
+      if (db instanceof DBWrapper && ((DBWrapper) db).isAsync()) {
+        pipeline = new PipelinedDB((DBWrapper) db, asyncInflight);
+        target = pipeline;
+      } else {
+        System.err.println("The DB does not support asynchronous operations, ignoring " +
+            ASYNC_INFLIGHT_PROPERTY + "=" + asyncInflight);
+      }
+    }
+
     //NOTE: Switching to using nanoTime and parkNanos for time management here such that the measurements
     // and the client thread have the same view on time.
 
@@ -119,7 +155,9 @@ public class ClientThread implements Runnable {
 
         while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
 
-          if (!workload.doTransaction(db, workloadstate)) {
+          awaitArrival();
+
+          if (!workload.doTransaction(target, workloadstate)) {
             break;
           }
 
@@ -132,7 +170,9 @@ public class ClientThread implements Runnable {
 
         while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
 
-          if (!workload.doInsert(db, workloadstate)) {
+          awaitArrival();
+
+          if (!workload.doInsert(target, workloadstate)) {
             break;
           }
 
@@ -141,6 +181,9 @@ public class ClientThread implements Runnable {
           throttleNanos(startTimeNanos);
         }
       }
+      if (pipeline != null) {
+        pipeline.drain();
+      }
     } catch (Exception e) {
       e.printStackTrace();
       e.printStackTrace(System.out);
@@ -158,14 +201,25 @@ public class ClientThread implements Runnable {
     }
   }
 
-  private static void sleepUntil(long deadline) {
+  private void sleepUntil(long deadline) {
     while (System.nanoTime() < deadline) {
       if (!spinSleep) {
         LockSupport.parkNanos(deadline - System.nanoTime());
+      } else if (yieldWhileSpinning) {
+        Thread.yield();
       }
     }
   }
 
+  private void awaitArrival() {
+    if (arrivals != null) {
+      // The operation is measured from its arrival, however late this thread gets to it.
+      long arrival = arrivals.nextArrivalNanos();
+      sleepUntil(arrival);
+      measurements.setIntendedStartTimeNs(arrival);
+    }
+  }
+
   private void throttleNanos(long startTimeNanos) {
     //throttle the operations
     if (targetOpsPerMs > 0) {
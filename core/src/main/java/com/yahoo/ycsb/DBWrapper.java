@@ -23,13 +23,18 @@ import org.apache.htrace.core.TraceScope;
 import org.apache.htrace.core.Tracer;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 /**
  * Wrapper around a "real" DB that measures latencies and counts return codes.
  * Also reports latency separately between OK and failed operations.
+ * Operations submitted through the *Async methods are measured when they complete.
  */
 public class DBWrapper extends DB {
   private final DB db;
+  private final AsyncDB asyncDb;
   private final Measurements measurements;
   private final Tracer tracer;
 
@@ -41,6 +46,29 @@ public class DBWrapper extends DB {
 
   private static final String LATENCY_TRACKED_ERRORS_PROPERTY = "latencytrackederrors";
 
+  /**
+   * Also measure every operation per table, e.g. INSERT-user next to INSERT. The GraphQL social workload
+   * passes the query name as table, which gives histograms per query such as READ-userByIdWithPosts.
+   */
+  public static final String PER_TABLE_MEASUREMENT_PROPERTY = "measurement.pertable";
+  public static final String PER_TABLE_MEASUREMENT_PROPERTY_DEFAULT = "false";
+
+  private boolean perTable = false;
+
+  // Operation types, the index into the measurements of a table.
+  private static final int READ = 0;
+  private static final int SCAN = 1;
+  private static final int UPDATE = 2;
+  private static final int INSERT = 3;
+  private static final int DELETE = 4;
+  private static final int CLEANUP = 5;
+  private static final String[] OPERATIONS = {"READ", "SCAN", "UPDATE", "INSERT", "DELETE", "CLEANUP"};
+
+  // The measurement handles are resolved once per operation type and table, so measuring an operation
+  // neither builds nor hashes a measurement name. Asynchronous operations complete on other threads.
+  private final OperationMeasurements[] totals;
+  private final ConcurrentHashMap<String, OperationMeasurements[]> tables = new ConcurrentHashMap<>();
+
   private final String scopeStringCleanup;
   private final String scopeStringDelete;
   private final String scopeStringInit;
@@ -51,8 +79,13 @@ public class DBWrapper extends DB {
 
   public DBWrapper(final DB db, final Tracer tracer) {
     this.db = db;
+    this.asyncDb = db instanceof AsyncDB ? (AsyncDB) db : null;
     measurements = Measurements.getMeasurements();
     this.tracer = tracer;
+    totals = new OperationMeasurements[OPERATIONS.length];
+    for (int i = 0; i < OPERATIONS.length; i++) {
+      totals[i] = new OperationMeasurements(OPERATIONS[i]);
+    }
     final String simple = db.getClass().getSimpleName();
     scopeStringCleanup = simple + "#cleanup";
     scopeStringDelete = simple + "#delete";
@@ -89,6 +122,9 @@ public class DBWrapper extends DB {
           getProperty(REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY,
               REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT));
 
+      this.perTable = Boolean.parseBoolean(getProperties().
+          getProperty(PER_TABLE_MEASUREMENT_PROPERTY, PER_TABLE_MEASUREMENT_PROPERTY_DEFAULT));
+
       if (!reportLatencyForEachError) {
         String latencyTrackedErrorsProperty = getProperties().getProperty(LATENCY_TRACKED_ERRORS_PROPERTY, null);
         if (latencyTrackedErrorsProperty != null) {
@@ -113,7 +149,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       db.cleanup();
       long en = System.nanoTime();
-      measure("CLEANUP", Status.OK, ist, st, en);
+      measure(totals[CLEANUP], Status.OK, ist, st, en);
     }
   }
 
@@ -134,8 +170,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.read(table, key, fields, result);
       long en = System.nanoTime();
-      measure("READ", res, ist, st, en);
-      measurements.reportStatus("READ", res);
+      measure(READ, table, res, ist, st, en);
       return res;
     }
   }
@@ -158,27 +193,81 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.scan(table, startkey, recordcount, fields, result);
       long en = System.nanoTime();
-      measure("SCAN", res, ist, st, en);
-      measurements.reportStatus("SCAN", res);
+      measure(SCAN, table, res, ist, st, en);
       return res;
     }
   }
 
-  private void measure(String op, Status result, long intendedStartTimeNanos,
+  private void measure(int op, String table, Status result, long intendedStartTimeNanos,
                        long startTimeNanos, long endTimeNanos) {
-    String measurementName = op;
-    if (result == null || !result.isOk()) {
-      if (this.reportLatencyForEachError ||
-          this.latencyTrackedErrors.contains(result.getName())) {
-        measurementName = op + "-" + result.getName();
-      } else {
-        measurementName = op + "-FAILED";
+    measure(totals[op], result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+    totals[op].ok.reportStatus(result);
+    // The operation log names an operation as specifically as the measurements do.
+    Measurements.Handle logged = totals[op].ok;
+    if (perTable && table != null) {
+      OperationMeasurements perTableMeasurements = measurementsOf(table)[op];
+      measure(perTableMeasurements, result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+      perTableMeasurements.ok.reportStatus(result);
+      logged = perTableMeasurements.ok;
+    }
+    logged.log(result, startTimeNanos, endTimeNanos);
+  }
+
+  private void measure(OperationMeasurements m, Status result, long intendedStartTimeNanos,
+                       long startTimeNanos, long endTimeNanos) {
+    Measurements.Handle handle = m.latency(result);
+    handle.measure((int) ((endTimeNanos - startTimeNanos) / 1000));
+    handle.measureIntended((int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+  }
+
+  private OperationMeasurements[] measurementsOf(String table) {
+    OperationMeasurements[] m = tables.get(table);
+    if (m == null) {
+      m = new OperationMeasurements[OPERATIONS.length];
+      for (int i = 0; i < OPERATIONS.length; i++) {
+        m[i] = new OperationMeasurements(OPERATIONS[i] + "-" + table);
+      }
+      OperationMeasurements[] old = tables.putIfAbsent(table, m);
+      if (old != null) {
+        m = old;
+      }
+    }
+    return m;
+  }
+
+  /**
+   * The measurements of one operation type, in total or on one table: the latency of successful and of
+   * failed operations. Failures are measured as OP-FAILED, or per status as OP-STATUS if configured.
+   */
+  private final class OperationMeasurements {
+    private final String name;
+    private final Measurements.Handle ok;
+    private final Measurements.Handle failed;
+    private final ConcurrentHashMap<String, Measurements.Handle> errors = new ConcurrentHashMap<>();
+
+    private OperationMeasurements(String name) {
+      this.name = name;
+      this.ok = measurements.getHandle(name);
+      this.failed = measurements.getHandle(name + "-FAILED");
+    }
+
+    Measurements.Handle latency(Status result) {
+      if (result != null && result.isOk()) {
+        return ok;
+      }
+      if (result == null || !(reportLatencyForEachError || latencyTrackedErrors.contains(result.getName()))) {
+        return failed;
+      }
+      Measurements.Handle handle = errors.get(result.getName());
+      if (handle == null) {
+        handle = measurements.getHandle(name + "-" + result.getName());
+        Measurements.Handle old = errors.putIfAbsent(result.getName(), handle);
+        if (old != null) {
+          handle = old;
+        }
       }
+      return handle;
     }
-    measurements.measure(measurementName,
-        (int) ((endTimeNanos - startTimeNanos) / 1000));
-    measurements.measureIntended(measurementName,
-        (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
   }
 
   /**
@@ -197,8 +286,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.update(table, key, values);
       long en = System.nanoTime();
-      measure("UPDATE", res, ist, st, en);
-      measurements.reportStatus("UPDATE", res);
+      measure(UPDATE, table, res, ist, st, en);
       return res;
     }
   }
@@ -220,8 +308,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.insert(table, key, values);
       long en = System.nanoTime();
-      measure("INSERT", res, ist, st, en);
-      measurements.reportStatus("INSERT", res);
+      measure(INSERT, table, res, ist, st, en);
       return res;
     }
   }
@@ -239,9 +326,112 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.delete(table, key);
       long en = System.nanoTime();
-      measure("DELETE", res, ist, st, en);
-      measurements.reportStatus("DELETE", res);
+      measure(DELETE, table, res, ist, st, en);
       return res;
     }
   }
+
+  /**
+   * @return true if the wrapped DB can keep several operations in flight.
+   */
+  public boolean isAsync() {
+    return asyncDb != null;
+  }
+
+  /**
+   * Submit a read of a record. The latency is measured once the returned future completes.
+   *
+   * @see #read(String, String, Set, Map)
+   */
+  public CompletableFuture<Status> readAsync(String table, String key, Set<String> fields,
+                                             Map<String, ByteIterator> result) {
+    if (asyncDb == null) {
+      return CompletableFuture.completedFuture(read(table, key, fields, result));
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringRead)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureAsync(READ, table, asyncDb.readAsync(table, key, fields, result), ist, st);
+    }
+  }
+
+  /**
+   * Submit a range scan. The latency is measured once the returned future completes.
+   *
+   * @see #scan(String, String, int, Set, Vector)
+   */
+  public CompletableFuture<Status> scanAsync(String table, String startkey, int recordcount,
+                                             Set<String> fields, Vector<HashMap<String, ByteIterator>> result) {
+    if (asyncDb == null) {
+      return CompletableFuture.completedFuture(scan(table, startkey, recordcount, fields, result));
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringScan)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureAsync(SCAN, table, asyncDb.scanAsync(table, startkey, recordcount, fields, result),
+          ist, st);
+    }
+  }
+
+  /**
+   * Submit an update of a record. The latency is measured once the returned future completes.
+   *
+   * @see #update(String, String, Map)
+   */
+  public CompletableFuture<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+    if (asyncDb == null) {
+      return CompletableFuture.completedFuture(update(table, key, values));
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureAsync(UPDATE, table, asyncDb.updateAsync(table, key, values), ist, st);
+    }
+  }
+
+  /**
+   * Submit an insert of a record. The latency is measured once the returned future completes.
+   *
+   * @see #insert(String, String, Map)
+   */
+  public CompletableFuture<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+    if (asyncDb == null) {
+      return CompletableFuture.completedFuture(insert(table, key, values));
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureAsync(INSERT, table, asyncDb.insertAsync(table, key, values), ist, st);
+    }
+  }
+
+  /**
+   * Submit a delete of a record. The latency is measured once the returned future completes.
+   *
+   * @see #delete(String, String)
+   */
+  public CompletableFuture<Status> deleteAsync(String table, String key) {
+    if (asyncDb == null) {
+      return CompletableFuture.completedFuture(delete(table, key));
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringDelete)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureAsync(DELETE, table, asyncDb.deleteAsync(table, key), ist, st);
+    }
+  }
+
+  private CompletableFuture<Status> measureAsync(final int op, final String table,
+                                                 CompletableFuture<Status> pending,
+                                                 final long intendedStartTimeNanos, final long startTimeNanos) {
+    return pending.handle(new BiFunction<Status, Throwable, Status>() {
+      @Override
+      public Status apply(Status res, Throwable failure) {
+        long en = System.nanoTime();
+        Status status = failure == null ? res : Status.ERROR;
+        measure(op, table, status, intendedStartTimeNanos, startTimeNanos, en);
+        return status;
+      }
+    });
+  }
 }
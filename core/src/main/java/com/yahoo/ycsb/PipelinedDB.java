@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+
+/**
+ * The DB handed to the workload by a client thread that keeps several operations in flight.
+ *
+ * Every operation is submitted to the asynchronous methods of the {@link DBWrapper}, which measures it
+ * on completion, and returns {@link Status#BATCHED_OK} right away. The calling thread only blocks once
+ * the configured number of operations is outstanding. Because the outcome of an operation is not known
+ * when the workload receives the status, workloads that retry on failure or inspect read results do not
+ * see the real outcome in this mode.
+ */
+public final class PipelinedDB extends DB {
+  private final DBWrapper db;
+  private final int limit;
+  private final Semaphore inflight;
+  private final BiConsumer<Status, Throwable> release = new BiConsumer<Status, Throwable>() {
+    @Override
+    public void accept(Status status, Throwable failure) {
+      inflight.release();
+    }
+  };
+
+  PipelinedDB(DBWrapper db, int limit) {
+    this.db = db;
+    this.limit = limit;
+    this.inflight = new Semaphore(limit);
+  }
+
+  @Override
+  public void setProperties(Properties p) {
+    db.setProperties(p);
+  }
+
+  @Override
+  public Properties getProperties() {
+    return db.getProperties();
+  }
+
+  @Override
+  public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    inflight.acquireUninterruptibly();
+    return submitted(db.readAsync(table, key, fields, result));
+  }
+
+  @Override
+  public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                     Vector<HashMap<String, ByteIterator>> result) {
+    inflight.acquireUninterruptibly();
+    return submitted(db.scanAsync(table, startkey, recordcount, fields, result));
+  }
+
+  @Override
+  public Status update(String table, String key, Map<String, ByteIterator> values) {
+    inflight.acquireUninterruptibly();
+    return submitted(db.updateAsync(table, key, values));
+  }
+
+  @Override
+  public Status insert(String table, String key, Map<String, ByteIterator> values) {
+    insertAsync(table, key, values);
+    return Status.BATCHED_OK;
+  }
+
+  /**
+   * Submits an insert like {@link #insert(String, String, Map)}, for workloads that act once it completed,
+   * such as acknowledging the key of the new record.
+   *
+   * @return The status of the insert, once it completed.
+   */
+  public CompletableFuture<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+    inflight.acquireUninterruptibly();
+    CompletableFuture<Status> pending = db.insertAsync(table, key, values);
+    pending.whenComplete(release);
+    return pending;
+  }
+
+  @Override
+  public Status delete(String table, String key) {
+    inflight.acquireUninterruptibly();
+    return submitted(db.deleteAsync(table, key));
+  }
+
+  /**
+   * Waits until all submitted operations have completed. Workloads call this where later operations
+   * depend on the earlier ones, e.g. between the phases of a load.
+   */
+  public void drain() {
+    inflight.acquireUninterruptibly(limit);
+    inflight.release(limit);
+  }
+
+  private Status submitted(CompletableFuture<Status> pending) {
+    pending.whenComplete(release);
+    return Status.BATCHED_OK;
+  }
+}
@@ -17,12 +17,23 @@
 
 package com.yahoo.ycsb;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * The result of an operation.
  */
 public class Status {
+  // The ids given out so far; equal statuses share one id.
+  private static final Map<Status, Integer> IDS = new HashMap<>();
+  private static final List<Status> BY_ID = new ArrayList<>();
+
   private final String name;
   private final String description;
+  // The id of the status, or -1 until it was asked for.
+  private int id = -1;
 
   /**
    * @param name A short name for the status.
@@ -42,6 +53,45 @@ public class Status {
     return description;
   }
 
+  /**
+   * Returns a small number that identifies the status, so counts of statuses can be kept in an array. Ids are
+   * given out in the order statuses are first asked for, starting at 0, and equal statuses have the same id.
+   */
+  public int getId() {
+    int known = id;
+    if (known < 0) {
+      synchronized (IDS) {
+        Integer existing = IDS.get(this);
+        if (existing == null) {
+          existing = BY_ID.size();
+          IDS.put(this, existing);
+          BY_ID.add(this);
+        }
+        known = existing;
+      }
+      id = known;
+    }
+    return known;
+  }
+
+  /**
+   * @return The status with an id returned by {@link #getId()}.
+   */
+  public static Status byId(int id) {
+    synchronized (IDS) {
+      return BY_ID.get(id);
+    }
+  }
+
+  /**
+   * @return The number of ids given out so far; the ids are 0 up to it.
+   */
+  public static int getIdCount() {
+    synchronized (IDS) {
+      return BY_ID.size();
+    }
+  }
+
   @Override
   public String toString() {
     return "Status [name=" + name + ", description=" + description + "]";
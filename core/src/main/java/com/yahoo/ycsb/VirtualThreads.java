@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Creates virtual threads when running on Java 21 or newer. YCSB is compiled for older
+ * Java versions, so the virtual thread API is looked up reflectively.
+ */
+final class VirtualThreads {
+  private static final MethodHandle OF_VIRTUAL;
+  private static final MethodHandle NAME;
+  private static final MethodHandle UNSTARTED;
+  private static final MethodHandle IS_VIRTUAL;
+
+  static {
+    MethodHandle ofVirtual = null;
+    MethodHandle name = null;
+    MethodHandle unstarted = null;
+    MethodHandle isVirtual = null;
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+      name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class));
+      unstarted = lookup.findVirtual(builder, "unstarted", MethodType.methodType(Thread.class, Runnable.class));
+      isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+    } catch (ReflectiveOperationException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    UNSTARTED = unstarted;
+    IS_VIRTUAL = isVirtual;
+  }
+
+  private VirtualThreads() {
+    // not used
+  }
+
+  /**
+   * @return true if the running JVM supports virtual threads.
+   */
+  static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Creates an unstarted virtual thread.
+   *
+   * @param task The task the thread runs.
+   * @param threadName The name of the thread.
+   * @throws UnsupportedOperationException if the JVM does not support virtual threads.
+   */
+  static Thread newThread(Runnable task, String threadName) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or newer.");
+    }
+    try {
+      Object builder = OF_VIRTUAL.invoke();
+      builder = NAME.invoke(builder, threadName);
+      return (Thread) UNSTARTED.invoke(builder, task);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  /**
+   * @return true if the given thread is a virtual thread.
+   */
+  static boolean isVirtual(Thread thread) {
+    if (!isSupported()) {
+      return false;
+    }
+    try {
+      return (boolean) IS_VIRTUAL.invoke(thread);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+}
@@ -16,31 +16,65 @@
  */
 package com.yahoo.ycsb.generator;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A CounterGenerator that reports generated integers via lastInt()
  * only after they have been acknowledged.
+ *
+ * Acknowledged values are bits in words of 64 consecutive values, and the words are grouped into segments of
+ * {@link #WINDOW_SIZE} values. Every acknowledgement sets its bit and then moves the limit over the contiguous
+ * acknowledged values with a compare-and-set, so the limit advances without a lock and never waits for a thread
+ * that happens to hold one. Segments are appended when a value beyond the last one is acknowledged and dropped
+ * once the limit moved past them, so the window grows with the number of unacknowledged values.
  */
 public class AcknowledgedCounterGenerator extends CounterGenerator {
-  /** The size of the window of pending id ack's. 2^20 = {@value} */
+  /** The number of values a segment covers. 2^20 = {@value} */
   static final int WINDOW_SIZE = Integer.rotateLeft(1, 20);
 
-  /** The mask to use to turn an id into a slot in {@link #window}. */
-  private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+  private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(WINDOW_SIZE);
+  private static final int WORD_MASK = WINDOW_SIZE / Long.SIZE - 1;
 
-  private final ReentrantLock lock;
-  private final boolean[] window;
-  private volatile long limit;
+  /**
+   * The acknowledged values of a segment, one bit per value. The segments form a list in the order of their
+   * numbers, which is only ever appended to.
+   */
+  private static final class Segment {
+    private final long number;
+    private final AtomicLongArray words = new AtomicLongArray(WINDOW_SIZE / Long.SIZE);
+    private final AtomicReference<Segment> next = new AtomicReference<>();
+
+    private Segment(long number) {
+      this.number = number;
+    }
+
+    private Segment next() {
+      Segment successor = next.get();
+      if (successor == null) {
+        next.compareAndSet(null, new Segment(number + 1));
+        successor = next.get();
+      }
+      return successor;
+    }
+  }
+
+  /** The segment of the value after the limit, or one before it until a thread moves it. */
+  private final AtomicReference<Segment> head;
+  /** The last segment that was appended; a hint, as values are mostly acknowledged soon after generation. */
+  private final AtomicReference<Segment> tail;
+  private final AtomicLong limit;
 
   /**
    * Create a counter that starts at countstart.
    */
   public AcknowledgedCounterGenerator(long countstart) {
     super(countstart);
-    lock = new ReentrantLock();
-    window = new boolean[WINDOW_SIZE];
-    limit = countstart - 1;
+    Segment first = new Segment(countstart >> SEGMENT_SHIFT);
+    head = new AtomicReference<>(first);
+    tail = new AtomicReference<>(first);
+    limit = new AtomicLong(countstart - 1);
   }
 
   /**
@@ -49,40 +83,57 @@ public class AcknowledgedCounterGenerator extends CounterGenerator {
    */
   @Override
   public Long lastValue() {
-    return limit;
+    return limit.get();
   }
 
   /**
    * Make a generated counter value available via lastInt().
    */
   public void acknowledge(long value) {
-    final int currentSlot = (int)(value & WINDOW_MASK);
-    if (window[currentSlot]) {
-      throw new RuntimeException("Too many unacknowledged insertion keys.");
-    }
-
-    window[currentSlot] = true;
-
-    if (lock.tryLock()) {
-      // move a contiguous sequence from the window
-      // over to the "limit" variable
-      try {
-        // Only loop through the entire window at most once.
-        long beforeFirstSlot = (limit & WINDOW_MASK);
-        long index;
-        for (index = limit + 1; index != beforeFirstSlot; ++index) {
-          int slot = (int)(index & WINDOW_MASK);
-          if (!window[slot]) {
-            break;
-          }
+    Segment segment = segment(value >> SEGMENT_SHIFT);
+    int index = (int) ((value >> 6) & WORD_MASK);
+    long bit = 1L << value;
+    long current;
+    do {
+      current = segment.words.get(index);
+    } while ((current & bit) == 0 && !segment.words.compareAndSet(index, current, current | bit));
+    advance();
+  }
 
-          window[slot] = false;
-        }
+  // Finds the segment, appending segments up to it if it is beyond the last one.
+  private Segment segment(long number) {
+    // Unacknowledged values are not behind the limit, so the segment is not behind the head.
+    Segment segment = head.get();
+    Segment last = tail.get();
+    if (last.number > segment.number && last.number <= number) {
+      segment = last;
+    }
+    while (segment.number < number) {
+      segment = segment.next();
+    }
+    while (last.number < segment.number && !tail.compareAndSet(last, segment)) {
+      last = tail.get();
+    }
+    return segment;
+  }
 
-        limit = index - 1;
-      } finally {
-        lock.unlock();
+  private void advance() {
+    while (true) {
+      long last = limit.get();
+      long next = last + 1;
+      Segment segment = head.get();
+      if (segment.number < next >> SEGMENT_SHIFT) {
+        // The limit moved past the segment; every thread may move the head on.
+        head.compareAndSet(segment, segment.next());
+        continue;
+      }
+      int position = (int) (next & (Long.SIZE - 1));
+      long word = segment.words.get((int) ((next >> 6) & WORD_MASK));
+      int run = Long.numberOfTrailingZeros(~(word >>> position));
+      if (run == 0) {
+        return;
       }
+      limit.compareAndSet(last, last + run);
     }
   }
 }
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates indexes 0..n-1 with the given weights in constant time, using Vose's alias method.
+ * The table is immutable once built, so one instance can be shared by all client threads, and
+ * {@link #nextInt()} neither allocates nor boxes.
+ */
+public class AliasTableGenerator extends NumberGenerator {
+  private final double[] probability;
+  private final int[] alias;
+  private final double mean;
+
+  /**
+   * @param weights The non-negative weight of each index; they need not sum up to 1.
+   * @throws IllegalArgumentException if there are no weights, a weight is negative or all are zero.
+   */
+  public AliasTableGenerator(double[] weights) {
+    int n = weights.length;
+    if (n == 0) {
+      throw new IllegalArgumentException("At least one weight is required.");
+    }
+    double sum = 0;
+    for (double weight : weights) {
+      if (weight < 0 || Double.isNaN(weight)) {
+        throw new IllegalArgumentException("Weights must not be negative: " + weight);
+      }
+      sum += weight;
+    }
+    if (sum <= 0) {
+      throw new IllegalArgumentException("At least one weight must be positive.");
+    }
+
+    probability = new double[n];
+    alias = new int[n];
+    double[] scaled = new double[n];
+    int[] small = new int[n];
+    int[] large = new int[n];
+    int smallCount = 0;
+    int largeCount = 0;
+    double weightedSum = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = weights[i] * n / sum;
+      weightedSum += i * weights[i];
+      if (scaled[i] < 1.0) {
+        small[smallCount++] = i;
+      } else {
+        large[largeCount++] = i;
+      }
+    }
+    mean = weightedSum / sum;
+
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+      probability[less] = scaled[less];
+      alias[less] = more;
+      scaled[more] = scaled[more] + scaled[less] - 1.0;
+      if (scaled[more] < 1.0) {
+        small[smallCount++] = more;
+      } else {
+        large[largeCount++] = more;
+      }
+    }
+    // What is left is 1 up to rounding errors.
+    while (largeCount > 0) {
+      int index = large[--largeCount];
+      probability[index] = 1.0;
+      alias[index] = index;
+    }
+    while (smallCount > 0) {
+      int index = small[--smallCount];
+      probability[index] = 1.0;
+      alias[index] = index;
+    }
+  }
+
+  /**
+   * @return The next index, without boxing and without updating {@link #lastValue()}.
+   */
+  public int nextInt() {
+    double u = ThreadLocalRandom.current().nextDouble() * probability.length;
+    int column = (int) u;
+    return u - column < probability[column] ? column : alias[column];
+  }
+
+  @Override
+  public Integer nextValue() {
+    Integer value = nextInt();
+    setLastValue(value);
+    return value;
+  }
+
+  @Override
+  public double mean() {
+    return mean;
+  }
+}
@@ -69,6 +69,20 @@ public class ExponentialGenerator extends NumberGenerator {
     return -Math.log(ThreadLocalRandom.current().nextDouble()) / gamma;
   }
 
+  /**
+   * Generate the next item of the distribution truncated to [0, bound), by inverting its cumulative
+   * distribution function. The values have the same distribution as the ones of {@link #nextValue()} that are
+   * smaller than bound, but each call draws only once.
+   *
+   * @param bound The exclusive upper bound, which must be positive.
+   * @return The next item in [0, bound).
+   */
+  public double nextTruncated(double bound) {
+    double u = ThreadLocalRandom.current().nextDouble();
+    double value = -Math.log1p(u * Math.expm1(-gamma * bound)) / gamma;
+    return Math.min(value, Math.nextDown(bound));
+  }
+
   @Override
   public double mean() {
     return 1.0 / gamma;
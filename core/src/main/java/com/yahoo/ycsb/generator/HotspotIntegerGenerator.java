@@ -86,6 +86,11 @@ public class HotspotIntegerGenerator extends NumberGenerator {
     return value;
   }
 
+  @Override
+  public HotspotIntegerGenerator copyForThread() {
+    return new HotspotIntegerGenerator(lowerBound, upperBound, hotsetFraction, hotOpnFraction);
+  }
+
   /**
    * @return the lowerBound
    */
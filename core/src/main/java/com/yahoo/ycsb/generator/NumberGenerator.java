@@ -38,6 +38,16 @@ public abstract class NumberGenerator extends Generator<Number> {
     return lastVal;
   }
 
+  /**
+   * Return a generator of the same distribution for the exclusive use of one thread, so threads neither
+   * contend on the last value nor on other state that changes with each value. Precomputed state is shared
+   * with the copy, and so is state that all threads must see, like the position of a counter. Generators
+   * that cannot be copied return themselves.
+   */
+  public NumberGenerator copyForThread() {
+    return this;
+  }
+
   /**
    * Return the expected value (mean) of the values this generator will return.
    */
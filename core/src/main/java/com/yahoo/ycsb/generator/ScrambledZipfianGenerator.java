@@ -34,7 +34,9 @@ public class ScrambledZipfianGenerator extends NumberGenerator {
   public static final double USED_ZIPFIAN_CONSTANT = 0.99;
   public static final long ITEM_COUNT = 10000000000L;
 
-  private ZipfianGenerator gen;
+  private final ZipfianGenerator gen;
+  // The ranks drawn by nextLong(long), from a zipfian distribution over the items up to its bound.
+  private final ZipfianGenerator ranks;
   private final long min, max, itemcount;
 
   /******************************* Constructors **************************************/
@@ -90,6 +92,25 @@ zipfian constant
     } else {
       gen = new ZipfianGenerator(0, ITEM_COUNT, zipfianconstant);
     }
+    // Zeta is computed incrementally for the bounds that nextLong(long) is called with, starting at one item.
+    ranks = new ZipfianGenerator(0, 0, zipfianconstant, 1.0);
+  }
+
+  private ScrambledZipfianGenerator(ScrambledZipfianGenerator prototype) {
+    min = prototype.min;
+    max = prototype.max;
+    itemcount = prototype.itemcount;
+    gen = prototype.gen.copyForThread();
+    ranks = prototype.ranks.copyForThread();
+    setLastValue(prototype.lastValue());
+  }
+
+  /**
+   * Return a generator of the same distribution that shares the zeta of this one.
+   */
+  @Override
+  public ScrambledZipfianGenerator copyForThread() {
+    return new ScrambledZipfianGenerator(this);
   }
 
   /**************************************************************************************************/
@@ -105,6 +126,37 @@ zipfian constant
     return ret;
   }
 
+  /**
+   * Return the next long in the sequence that is at most upper, for a keyspace of which only the items up to upper
+   * exist yet. The rank of the item is drawn from a zipfian distribution over the items in [min, upper], and then
+   * scattered across them with a consistent hash: when upper grows, a rank moves to one of the new items with the
+   * probability of a new item, and otherwise keeps its item. So the popular items stay popular as the keyspace
+   * grows, and each call draws only once.
+   *
+   * @param upper The largest integer to return, at least min.
+   */
+  public long nextLong(long upper) {
+    long count = upper - min + 1;
+    long ret = min + jumpHash(Utils.fnvhash64(ranks.nextLong(count)), count);
+    setLastValue(ret);
+    return ret;
+  }
+
+  /**
+   * The bucket of a key among the given number of buckets, from "A Fast, Minimal Memory, Consistent Hash
+   * Algorithm", Lamping and Veach 2014.
+   */
+  static long jumpHash(long key, long buckets) {
+    long bucket = -1;
+    long next = 0;
+    while (next < buckets) {
+      bucket = next;
+      key = key * 2862933555777941757L + 1;
+      next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+    }
+    return bucket;
+  }
+
   public static void main(String[] args) {
     double newzetan = ZipfianGenerator.zetastatic(ITEM_COUNT, ZipfianGenerator.ZIPFIAN_CONSTANT);
     System.out.println("zetan: " + newzetan);
@@ -21,7 +21,7 @@ package com.yahoo.ycsb.generator;
  * Generate a popularity distribution of items, skewed to favor recent items significantly more than older items.
  */
 public class SkewedLatestGenerator extends NumberGenerator {
-  private CounterGenerator basis;
+  private final CounterGenerator basis;
   private final ZipfianGenerator zipfian;
 
   public SkewedLatestGenerator(CounterGenerator basis) {
@@ -30,6 +30,20 @@ public class SkewedLatestGenerator extends NumberGenerator {
     nextValue();
   }
 
+  private SkewedLatestGenerator(SkewedLatestGenerator prototype) {
+    basis = prototype.basis;
+    zipfian = prototype.zipfian.copyForThread();
+    setLastValue(prototype.lastValue());
+  }
+
+  /**
+   * Return a generator that follows the same basis and shares the zeta of this one.
+   */
+  @Override
+  public SkewedLatestGenerator copyForThread() {
+    return new SkewedLatestGenerator(this);
+  }
+
   /**
    * Generate the next string in the distribution, skewed Zipfian favoring the items most recently returned by
    * the basis generator.
@@ -47,6 +47,11 @@ public class UniformLongGenerator extends NumberGenerator {
     return ret;
   }
 
+  @Override
+  public UniformLongGenerator copyForThread() {
+    return new UniformLongGenerator(lb, ub);
+  }
+
   @Override
   public double mean() {
     return ((lb + (long) ub)) / 2.0;
@@ -18,6 +18,7 @@
 package com.yahoo.ycsb.generator;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A generator of a zipfian distribution. It produces a sequence of items, such that some items are more popular than
@@ -37,6 +38,10 @@ import java.util.concurrent.ThreadLocalRandom;
  * fast unless you have added millions of items. However, if you decrease the number of items, we recompute zeta from
  * scratch, so this can take a long time.
  *
+ * Generating a value takes no lock: zeta is kept in an immutable object that is replaced when the number of items
+ * changes. Threads that use the same distribution should each use a {@link #copyForThread()} of the generator; the
+ * copies share the zeta that any of them computed.
+ *
  * The algorithm used here is from "Quickly Generating Billion-Record Synthetic Databases", Jim Gray et al, SIGMOD 1994.
  */
 public class ZipfianGenerator extends NumberGenerator {
@@ -60,12 +65,12 @@ public class ZipfianGenerator extends NumberGenerator {
   /**
    * Computed parameters for generating the distribution.
    */
-  private double alpha, zetan, eta, theta, zeta2theta;
+  private final double alpha, theta, zeta2theta;
 
   /**
-   * The number of items used to compute zetan the last time.
+   * The zeta of the number of items used the last time, shared with the copies of this generator.
    */
-  private long countforzeta;
+  private final AtomicReference<Zeta> zeta;
 
   /**
    * Flag to prevent problems. If you increase the number of items the zipfian generator is allowed to choose from,
@@ -137,30 +142,57 @@ public class ZipfianGenerator extends NumberGenerator {
 
     theta = this.zipfianconstant;
 
-    zeta2theta = zeta(2, theta);
+    zeta2theta = zetastatic(2, theta);
     
     alpha = 1.0 / (1.0 - theta);
-    this.zetan = zetan;
-    countforzeta = items;
-    eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / this.zetan);
+    zeta = new AtomicReference<>(newZeta(items, zetan));
 
     nextValue();
   }
 
-  /**************************************************************************/
+  private ZipfianGenerator(ZipfianGenerator prototype) {
+    items = prototype.items;
+    base = prototype.base;
+    zipfianconstant = prototype.zipfianconstant;
+    theta = prototype.theta;
+    zeta2theta = prototype.zeta2theta;
+    alpha = prototype.alpha;
+    zeta = prototype.zeta;
+    allowitemcountdecrease = prototype.allowitemcountdecrease;
+    setLastValue(prototype.lastValue());
+  }
 
   /**
-   * Compute the zeta constant needed for the distribution. Do this from scratch for a distribution with n items,
-   * using the zipfian constant thetaVal. Remember the value of n, so if we change the itemcount, we can recompute zeta.
-   *
-   * @param n The number of items to compute zeta over.
-   * @param thetaVal The zipfian constant.
+   * Return a generator of the same distribution that shares the zeta computed by this one, so it is neither
+   * computed again for the copy nor for the number of items that one of them has seen already.
+   */
+  @Override
+  public ZipfianGenerator copyForThread() {
+    return new ZipfianGenerator(this);
+  }
+
+  /**
+   * The zeta constant for a number of items, and eta which depends on it. It is immutable, so a thread
+   * always sees a zetan and eta that belong together.
    */
-  double zeta(long n, double thetaVal) {
-    countforzeta = n;
-    return zetastatic(n, thetaVal);
+  private static final class Zeta {
+    private final long count;
+    private final double zetan;
+    private final double eta;
+
+    private Zeta(long count, double zetan, double eta) {
+      this.count = count;
+      this.zetan = zetan;
+      this.eta = eta;
+    }
+  }
+
+  private Zeta newZeta(long count, double zetan) {
+    return new Zeta(count, zetan, (1 - Math.pow(2.0 / count, 1 - theta)) / (1 - zeta2theta / zetan));
   }
 
+  /**************************************************************************/
+
   /**
    * Compute the zeta constant needed for the distribution. Do this from scratch for a distribution with n items,
    * using the zipfian constant theta. This is a static version of the function which will not remember n.
@@ -171,21 +203,6 @@ public class ZipfianGenerator extends NumberGenerator {
     return zetastatic(0, n, theta, 0);
   }
 
-  /**
-   * Compute the zeta constant needed for the distribution. Do this incrementally for a distribution that
-   * has n items now but used to have st items. Use the zipfian constant thetaVal. Remember the new value of
-   * n so that if we change the itemcount, we'll know to recompute zeta.
-   *
-   * @param st The number of items used to compute the last initialsum
-   * @param n The number of items to compute zeta over.
-   * @param thetaVal The zipfian constant.
-   * @param initialsum The value of zeta we are computing incrementally from.
-   */
-  double zeta(long st, long n, double thetaVal, double initialsum) {
-    countforzeta = n;
-    return zetastatic(st, n, thetaVal, initialsum);
-  }
-
   /**
    * Compute the zeta constant needed for the distribution. Do this incrementally for a distribution that
    * has n items now but used to have st items. Use the zipfian constant theta. Remember the new value of
@@ -202,8 +219,6 @@ public class ZipfianGenerator extends NumberGenerator {
       sum += 1 / (Math.pow(i + 1, theta));
     }
 
-    //System.out.println("countforzeta="+countforzeta);
-
     return sum;
   }
 
@@ -219,36 +234,14 @@ public class ZipfianGenerator extends NumberGenerator {
   long nextLong(long itemcount) {
     //from "Quickly Generating Billion-Record Synthetic Databases", Jim Gray et al, SIGMOD 1994
 
-    if (itemcount != countforzeta) {
-
+    Zeta current = zeta.get();
+    if (itemcount != current.count) {
       //have to recompute zetan and eta, since they depend on itemcount
-      synchronized (this) {
-        if (itemcount > countforzeta) {
-          //System.err.println("WARNING: Incrementally recomputing Zipfian distribtion. (itemcount="+itemcount+"
-          // countforzeta="+countforzeta+")");
-
-          //we have added more items. can compute zetan incrementally, which is cheaper
-          zetan = zeta(countforzeta, itemcount, theta, zetan);
-          eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
-        } else if ((itemcount < countforzeta) && (allowitemcountdecrease)) {
-          //have to start over with zetan
-          //note : for large itemsets, this is very slow. so don't do it!
-
-          //TODO: can also have a negative incremental computation, e.g. if you decrease the number of items,
-          // then just subtract the zeta sequence terms for the items that went away. This would be faster than
-          // recomputing from scratch when the number of items decreases
-
-          System.err.println("WARNING: Recomputing Zipfian distribtion. This is slow and should be avoided. " +
-              "(itemcount=" + itemcount + " countforzeta=" + countforzeta + ")");
-
-          zetan = zeta(itemcount, theta);
-          eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
-        }
-      }
+      current = recomputeZeta(current, itemcount);
     }
 
     double u = ThreadLocalRandom.current().nextDouble();
-    double uz = u * zetan;
+    double uz = u * current.zetan;
 
     if (uz < 1.0) {
       return base;
@@ -258,11 +251,37 @@ public class ZipfianGenerator extends NumberGenerator {
       return base + 1;
     }
 
-    long ret = base + (long) ((itemcount) * Math.pow(eta * u - eta + 1, alpha));
+    long ret = base + (long) ((itemcount) * Math.pow(current.eta * u - current.eta + 1, alpha));
     setLastValue(ret);
     return ret;
   }
 
+  private Zeta recomputeZeta(Zeta current, long itemcount) {
+    Zeta next;
+    if (itemcount > current.count) {
+      //we have added more items. can compute zetan incrementally, which is cheaper
+      next = newZeta(itemcount, zetastatic(current.count, itemcount, theta, current.zetan));
+    } else if (allowitemcountdecrease) {
+      //have to start over with zetan
+      //note : for large itemsets, this is very slow. so don't do it!
+
+      //TODO: can also have a negative incremental computation, e.g. if you decrease the number of items,
+      // then just subtract the zeta sequence terms for the items that went away. This would be faster than
+      // recomputing from scratch when the number of items decreases
+
+      System.err.println("WARNING: Recomputing Zipfian distribtion. This is slow and should be avoided. " +
+          "(itemcount=" + itemcount + " countforzeta=" + current.count + ")");
+
+      next = newZeta(itemcount, zetastatic(itemcount, theta));
+    } else {
+      return current;
+    }
+    // Publish the new zeta unless another thread replaced the current one meanwhile. Either way this call
+    // uses the zeta of its own itemcount.
+    zeta.compareAndSet(current, next);
+    return next;
+  }
+
   /**
    * Return the next value, skewed by the Zipfian distribution. The 0th item will be the most popular, followed by
    * the 1st, followed by the 2nd, etc. (Or, if min != 0, the min-th item is the most popular, the min+1th item the
@@ -274,6 +293,13 @@ public class ZipfianGenerator extends NumberGenerator {
     return nextLong(items);
   }
 
+  /**
+   * Return the next value like {@link #nextValue()}, without boxing it.
+   */
+  long nextLong() {
+    return nextLong(items);
+  }
+
   public static void main(String[] args) {
     new ZipfianGenerator(ScrambledZipfianGenerator.ITEM_COUNT);
   }
@@ -21,6 +21,8 @@ import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -49,6 +51,13 @@ public class Measurements {
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY = "measurement.trackjvm";
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT = "false";
 
+  /**
+   * Log every operation with its start time, latency and status to this file, in the binary format of
+   * {@link OperationLog}. The log is completed when the measurements are exported and is read with
+   * {@link OperationLogReader}.
+   */
+  public static final String OPERATION_LOG_PROPERTY = "measurement.oplog";
+
   private static Measurements singleton = null;
   private static Properties measurementproperties = null;
 
@@ -68,9 +77,13 @@ public class Measurements {
 
   private final ConcurrentHashMap<String, OneMeasurement> opToMesurementMap;
   private final ConcurrentHashMap<String, OneMeasurement> opToIntendedMesurementMap;
+  private final Map<String, long[]> runtimes = new LinkedHashMap<>();
+  private final Map<String, Long> counts = new LinkedHashMap<>();
   private final MeasurementType measurementType;
   private final int measurementInterval;
   private final Properties props;
+  // The log of every operation, or null if none is configured.
+  private final OperationLog operationLog;
 
   /**
    * Create a new object with the specified properties.
@@ -119,6 +132,13 @@ public class Measurements {
     default:
       throw new IllegalArgumentException("unknown " + MEASUREMENT_INTERVAL + "=" + mIntervalString);
     }
+
+    String operationLogFile = this.props.getProperty(OPERATION_LOG_PROPERTY);
+    try {
+      operationLog = operationLogFile == null ? null : new OperationLog(operationLogFile);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("cannot create " + OPERATION_LOG_PROPERTY + "=" + operationLogFile, e);
+    }
   }
 
   private OneMeasurement constructOneMeasurement(String name) {
@@ -184,15 +204,7 @@ public class Measurements {
     if (measurementInterval == 1) {
       return;
     }
-    try {
-      OneMeasurement m = getOpMeasurement(operation);
-      m.measure(latency);
-    } catch (java.lang.ArrayIndexOutOfBoundsException e) {
-      // This seems like a terribly hacky way to cover up for a bug in the measurement code
-      System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-    }
+    record(getOpMeasurement(operation), latency);
   }
 
   /**
@@ -203,8 +215,11 @@ public class Measurements {
     if (measurementInterval == 0) {
       return;
     }
+    record(getOpIntendedMeasurement(operation), latency);
+  }
+
+  private static void record(OneMeasurement m, int latency) {
     try {
-      OneMeasurement m = getOpIntendedMeasurement(operation);
       m.measure(latency);
     } catch (java.lang.ArrayIndexOutOfBoundsException e) {
       // This seems like a terribly hacky way to cover up for a bug in the measurement code
@@ -214,6 +229,16 @@ public class Measurements {
     }
   }
 
+  /**
+   * Return a handle for reporting the values of one metric, for callers that report the same metric many
+   * times and want to neither build nor look up its name each time. The measurements behind the handle
+   * are the same as the ones reported by name; they are only created on first use, so a handle that is
+   * never used does not show up in the export.
+   */
+  public Handle getHandle(String operation) {
+    return new Handle(operation);
+  }
+
   private OneMeasurement getOpMeasurement(String operation) {
     OneMeasurement m = opToMesurementMap.get(operation);
     if (m == null) {
@@ -239,6 +264,95 @@ public class Measurements {
     return m;
   }
 
+  /**
+   * The measurements of one metric, resolved on first use.
+   */
+  public final class Handle {
+    private final String operation;
+    private volatile OneMeasurement measurement;
+    private volatile OneMeasurement intendedMeasurement;
+    // The id of the operation in the operation log, or 0 until it was resolved.
+    private volatile int logId;
+
+    private Handle(String operation) {
+      this.operation = operation;
+    }
+
+    public String getOperation() {
+      return operation;
+    }
+
+    /**
+     * @see Measurements#measure(String, int)
+     */
+    public void measure(int latency) {
+      if (measurementInterval == 1) {
+        return;
+      }
+      OneMeasurement m = measurement;
+      if (m == null) {
+        m = getOpMeasurement(operation);
+        measurement = m;
+      }
+      record(m, latency);
+    }
+
+    /**
+     * @see Measurements#measureIntended(String, int)
+     */
+    public void measureIntended(int latency) {
+      if (measurementInterval == 0) {
+        return;
+      }
+      OneMeasurement m = intendedMeasurement;
+      if (m == null) {
+        m = getOpIntendedMeasurement(operation);
+        intendedMeasurement = m;
+      }
+      record(m, latency);
+    }
+
+    /**
+     * @see Measurements#reportStatus(String, Status)
+     */
+    public void reportStatus(Status status) {
+      if (measurementInterval == 1) {
+        OneMeasurement m = intendedMeasurement;
+        if (m == null) {
+          m = getOpIntendedMeasurement(operation);
+          intendedMeasurement = m;
+        }
+        m.reportStatus(status);
+      } else {
+        OneMeasurement m = measurement;
+        if (m == null) {
+          m = getOpMeasurement(operation);
+          measurement = m;
+        }
+        m.reportStatus(status);
+      }
+    }
+
+    /**
+     * Logs an operation under the name of this handle, if the operation log is configured.
+     *
+     * @param status The status of the operation.
+     * @param startTimeNanos The start time of the operation, as taken from System.nanoTime().
+     * @param endTimeNanos The end time of the operation, as taken from System.nanoTime().
+     */
+    public void log(Status status, long startTimeNanos, long endTimeNanos) {
+      if (operationLog == null) {
+        return;
+      }
+      int id = logId;
+      if (id == 0) {
+        id = operationLog.operationId(operation);
+        logId = id;
+      }
+      operationLog.log(id, status, startTimeNanos, endTimeNanos);
+    }
+  }
+
   /**
    * Report a return code for a single DB operation.
    */
@@ -249,19 +363,65 @@ public class Measurements {
     m.reportStatus(status);
   }
 
+  /**
+   * Report the run time of a group of operations that is only a part of the whole run, such as the
+   * inserts into one table of a multi table load. It is exported as RunTime(ms) and Throughput(ops/sec)
+   * of the group.
+   *
+   * @param group The name the values are exported under.
+   * @param operations The number of operations of the group.
+   * @param runtimeMs The time the group took in milliseconds.
+   */
+  public void reportRuntime(String group, long operations, long runtimeMs) {
+    synchronized (runtimes) {
+      runtimes.put(group, new long[]{operations, runtimeMs});
+    }
+  }
+
+  /**
+   * Report the number of times something happened during the run, such as the number of keys a key chooser
+   * rejected. It is exported as the Count of the metric; a later report of the same metric replaces it.
+   *
+   * @param metric The name the count is exported under.
+   * @param count The number of times.
+   */
+  public void reportCount(String metric, long count) {
+    synchronized (counts) {
+      counts.put(metric, count);
+    }
+  }
+
   /**
    * Export the current measurements to a suitable format.
    *
+   * The operation log, if configured, is completed and closed.
+   *
    * @param exporter Exporter representing the type of format to write to.
    * @throws IOException Thrown if the export failed.
    */
   public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
+    if (operationLog != null) {
+      operationLog.close();
+    }
     for (OneMeasurement measurement : opToMesurementMap.values()) {
       measurement.exportMeasurements(exporter);
     }
     for (OneMeasurement measurement : opToIntendedMesurementMap.values()) {
       measurement.exportMeasurements(exporter);
     }
+    synchronized (runtimes) {
+      for (Map.Entry<String, long[]> runtime : runtimes.entrySet()) {
+        long operations = runtime.getValue()[0];
+        long runtimeMs = runtime.getValue()[1];
+        exporter.write(runtime.getKey(), "RunTime(ms)", runtimeMs);
+        exporter.write(runtime.getKey(), "Throughput(ops/sec)", runtimeMs == 0 ? 0 : 1000.0 * operations / runtimeMs);
+      }
+    }
+    synchronized (counts) {
+      for (Map.Entry<String, Long> count : counts.entrySet()) {
+        exporter.write(count.getKey(), "Count", count.getValue());
+      }
+    }
   }
 
   /**
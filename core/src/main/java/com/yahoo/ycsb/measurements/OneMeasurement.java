@@ -21,9 +21,7 @@ import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
 
 /**
  * A single measured metric (such as READ LATENCY).
@@ -31,7 +29,30 @@ import java.util.concurrent.atomic.AtomicInteger;
 public abstract class OneMeasurement {
 
   private final String name;
-  private final ConcurrentHashMap<Status, AtomicInteger> returncodes;
+  private final Stripes<StatusCounts> returncodes = new Stripes<StatusCounts>() {
+    @Override
+    protected StatusCounts newStripe() {
+      return new StatusCounts();
+    }
+  };
+
+  /**
+   * The statuses the threads of one stripe reported, counted by {@link Status#getId()}.
+   */
+  private static final class StatusCounts {
+    private long[] counts = new long[16];
+
+    private synchronized void increment(int id) {
+      if (id >= counts.length) {
+        counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+      }
+      counts[id]++;
+    }
+
+    private synchronized long[] get() {
+      return counts.clone();
+    }
+  }
 
   public String getName() {
     return name;
@@ -42,7 +63,6 @@ public abstract class OneMeasurement {
    */
   public OneMeasurement(String name) {
     this.name = name;
-    this.returncodes = new ConcurrentHashMap<>();
   }
 
   public abstract void measure(int latency);
@@ -50,20 +70,10 @@ public abstract class OneMeasurement {
   public abstract String getSummary();
 
   /**
-   * No need for synchronization, using CHM to deal with that.
+   * Counts into the stripe of the calling thread, so threads rarely wait for each other.
    */
   public void reportStatus(Status status) {
-    AtomicInteger counter = returncodes.get(status);
-
-    if (counter == null) {
-      counter = new AtomicInteger();
-      AtomicInteger other = returncodes.putIfAbsent(status, counter);
-      if (other != null) {
-        counter = other;
-      }
-    }
-
-    counter.incrementAndGet();
+    returncodes.get().increment(status.getId());
   }
 
   /**
@@ -75,8 +85,20 @@ public abstract class OneMeasurement {
   public abstract void exportMeasurements(MeasurementsExporter exporter) throws IOException;
 
   protected final void exportStatusCounts(MeasurementsExporter exporter) throws IOException {
-    for (Map.Entry<Status, AtomicInteger> entry : returncodes.entrySet()) {
-      exporter.write(getName(), "Return=" + entry.getKey().getName(), entry.getValue().get());
+    long[] totals = new long[0];
+    for (StatusCounts stripe : returncodes.all()) {
+      long[] counts = stripe.get();
+      if (counts.length > totals.length) {
+        totals = Arrays.copyOf(totals, counts.length);
+      }
+      for (int id = 0; id < counts.length; id++) {
+        totals[id] += counts[id];
+      }
+    }
+    for (int id = 0; id < totals.length; id++) {
+      if (totals[id] > 0) {
+        exporter.write(getName(), "Return=" + Status.byId(id).getName(), totals[id]);
+      }
     }
   }
 }
@@ -42,8 +42,23 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
   private final PrintStream log;
   private final HistogramLogWriter histogramLogWriter;
 
-  private final Recorder histogram;
+  // The threads record into a few recorders, and the intervals of all recorders are merged when read.
+  private final Stripes<Stripe> histogram = new Stripes<Stripe>() {
+    @Override
+    protected Stripe newStripe() {
+      return new Stripe();
+    }
+  };
   private Histogram totalHistogram;
+  private long intervalStart = System.currentTimeMillis();
+
+  /**
+   * The recorder of one stripe, and its last interval, which is recycled for the next one.
+   */
+  private static final class Stripe {
+    private final Recorder recorder = new Recorder(3);
+    private Histogram interval;
+  }
 
   /**
    * The name of the property for deciding what percentile values to output.
@@ -90,15 +105,14 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
       histogramLogWriter.setBaseTime(now);
       histogramLogWriter.outputLegend();
     }
-    histogram = new Recorder(3);
   }
 
   /**
    * It appears latency is reported in micros.
-   * Using {@link Recorder} to support concurrent updates to histogram.
+   * Using a {@link Recorder} per stripe of threads, so concurrent updates rarely contend.
    */
   public void measure(int latencyInMicros) {
-    histogram.recordValue(latencyInMicros);
+    histogram.get().recorder.recordValue(latencyInMicros);
   }
 
   /**
@@ -164,8 +178,17 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
         + d.format(intervalHistogram.getValueAtPercentile(99.99)) + "]";
   }
 
-  private Histogram getIntervalHistogramAndAccumulate() {
-    Histogram intervalHistogram = histogram.getIntervalHistogram();
+  // Called by the status thread and on termination, which may overlap, but never by the recording threads.
+  private synchronized Histogram getIntervalHistogramAndAccumulate() {
+    Histogram intervalHistogram = new Histogram(3);
+    for (Stripe stripe : histogram.all()) {
+      stripe.interval = stripe.recorder.getIntervalHistogram(stripe.interval);
+      intervalHistogram.add(stripe.interval);
+    }
+    long now = System.currentTimeMillis();
+    intervalHistogram.setStartTimeStamp(intervalStart);
+    intervalHistogram.setEndTimeStamp(now);
+    intervalStart = now;
     // add this to the total time histogram.
     if (totalHistogram == null) {
       totalHistogram = intervalHistogram;
@@ -205,7 +228,7 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
    * @param i number
    * @return ordinal string
    */
-  private String ordinal(Double i) {
+  static String ordinal(Double i) {
     String[] suffixes = new String[]{"th", "st", "nd", "rd", "th", "th", "th", "th", "th", "th"};
     Integer j = i.intValue();
     if (i % 1 == 0) {
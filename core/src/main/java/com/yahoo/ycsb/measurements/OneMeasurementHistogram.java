@@ -22,10 +22,17 @@ import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
 
 /**
  * Take measurements and maintain a histogram of a given metric, such as READ LATENCY.
  *
+ * Measuring takes no lock: the buckets are counted atomically and the latency sums are kept in adders, which
+ * spread concurrent updates over cells. The number of operations is the sum of the buckets.
  */
 public class OneMeasurementHistogram extends OneMeasurement {
   public static final String BUCKETS = "histogram.buckets";
@@ -40,102 +47,91 @@ public class OneMeasurementHistogram extends OneMeasurement {
   /**
    * Groups operations in discrete blocks of 1ms width.
    */
-  private long[] histogram;
+  private final AtomicLongArray histogram;
 
   /**
    * Counts all operations outside the histogram's range.
    */
-  private long histogramoverflow;
-
-  /**
-   * The total number of reported operations.
-   */
-  private long operations;
+  private final LongAdder histogramoverflow = new LongAdder();
 
   /**
    * The sum of each latency measurement over all operations.
    * Calculated in ms.
    */
-  private long totallatency;
+  private final LongAdder totallatency = new LongAdder();
 
   /**
    * The sum of each latency measurement squared over all operations. 
    * Used to calculate variance of latency.
    * Calculated in ms. 
    */
-  private double totalsquaredlatency;
+  private final DoubleAdder totalsquaredlatency = new DoubleAdder();
 
   /**
    * Whether or not to emit the histogram buckets.
    */
   private final boolean verbose;
   
-  //keep a windowed version of these stats for printing status
-  private long windowoperations;
-  private long windowtotallatency;
-
-  private int min;
-  private int max;
+  //keep the totals of the last status, the window is the difference to them
+  private long summaryoperations;
+  private long summarytotallatency;
+
+  private final LongAccumulator min = new LongAccumulator(new LongBinaryOperator() {
+    @Override
+    public long applyAsLong(long left, long right) {
+      return Math.min(left, right);
+    }
+  }, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(new LongBinaryOperator() {
+    @Override
+    public long applyAsLong(long left, long right) {
+      return Math.max(left, right);
+    }
+  }, Long.MIN_VALUE);
 
   public OneMeasurementHistogram(String name, Properties props) {
     super(name);
     buckets = Integer.parseInt(props.getProperty(BUCKETS, BUCKETS_DEFAULT));
     verbose = Boolean.valueOf(props.getProperty(VERBOSE_PROPERTY, String.valueOf(false)));
-    histogram = new long[buckets];
-    histogramoverflow = 0;
-    operations = 0;
-    totallatency = 0;
-    totalsquaredlatency = 0;
-    windowoperations = 0;
-    windowtotallatency = 0;
-    min = -1;
-    max = -1;
+    histogram = new AtomicLongArray(buckets);
   }
 
   /* (non-Javadoc)
    * @see com.yahoo.ycsb.OneMeasurement#measure(int)
    */
-  public synchronized void measure(int latency) {
+  public void measure(int latency) {
     //latency reported in us and collected in bucket by ms.
     if (latency / 1000 >= buckets) {
-      histogramoverflow++;
+      histogramoverflow.increment();
     } else {
-      histogram[latency / 1000]++;
-    }
-    operations++;
-    totallatency += latency;
-    totalsquaredlatency += ((double) latency) * ((double) latency);
-    windowoperations++;
-    windowtotallatency += latency;
-
-    if ((min < 0) || (latency < min)) {
-      min = latency;
-    }
-
-    if ((max < 0) || (latency > max)) {
-      max = latency;
+      histogram.incrementAndGet(latency / 1000);
     }
+    totallatency.add(latency);
+    totalsquaredlatency.add(((double) latency) * ((double) latency));
+    min.accumulate(latency);
+    max.accumulate(latency);
   }
 
   @Override
   public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
-    double mean = totallatency / ((double) operations);
-    double variance = totalsquaredlatency / ((double) operations) - (mean * mean);
-    exporter.write(getName(), "Operations", operations);
+    long count = operations();
+    double mean = totallatency.sum() / ((double) count);
+    double variance = totalsquaredlatency.sum() / ((double) count) - (mean * mean);
+    exporter.write(getName(), "Operations", count);
     exporter.write(getName(), "AverageLatency(us)", mean);
     exporter.write(getName(), "LatencyVariance(us)", variance);
-    exporter.write(getName(), "MinLatency(us)", min);
-    exporter.write(getName(), "MaxLatency(us)", max);
+    exporter.write(getName(), "MinLatency(us)", count == 0 ? -1 : (int) min.get());
+    exporter.write(getName(), "MaxLatency(us)", count == 0 ? -1 : (int) max.get());
 
     long opcounter=0;
     boolean done95th = false;
     for (int i = 0; i < buckets; i++) {
-      opcounter += histogram[i];
-      if ((!done95th) && (((double) opcounter) / ((double) operations) >= 0.95)) {
+      opcounter += histogram.get(i);
+      if ((!done95th) && (((double) opcounter) / ((double) count) >= 0.95)) {
         exporter.write(getName(), "95thPercentileLatency(us)", i * 1000);
         done95th = true;
       }
-      if (((double) opcounter) / ((double) operations) >= 0.99) {
+      if (((double) opcounter) / ((double) count) >= 0.99) {
         exporter.write(getName(), "99thPercentileLatency(us)", i * 1000);
         break;
       }
@@ -145,22 +141,36 @@ public class OneMeasurementHistogram extends OneMeasurement {
 
     if (verbose) {
       for (int i = 0; i < buckets; i++) {
-        exporter.write(getName(), Integer.toString(i), histogram[i]);
+        exporter.write(getName(), Integer.toString(i), histogram.get(i));
       }
       
-      exporter.write(getName(), ">" + buckets, histogramoverflow);
+      exporter.write(getName(), ">" + buckets, histogramoverflow.sum());
+    }
+  }
+
+  /**
+   * @return The total number of reported operations.
+   */
+  private long operations() {
+    long count = histogramoverflow.sum();
+    for (int i = 0; i < buckets; i++) {
+      count += histogram.get(i);
     }
+    return count;
   }
 
   @Override
   public String getSummary() {
-    if (windowoperations == 0) {
+    long operations = operations();
+    long latency = totallatency.sum();
+    if (operations == summaryoperations) {
       return "";
     }
     DecimalFormat d = new DecimalFormat("#.##");
-    double report = ((double) windowtotallatency) / ((double) windowoperations);
-    windowtotallatency = 0;
-    windowoperations = 0;
+    // An operation measured while the totals are read may be counted in the next window.
+    double report = ((double) (latency - summarytotallatency)) / ((double) (operations - summaryoperations));
+    summaryoperations = operations;
+    summarytotallatency = latency;
     return "[" + getName() + " AverageLatency(us)=" + d.format(report) + "]";
   }
 }
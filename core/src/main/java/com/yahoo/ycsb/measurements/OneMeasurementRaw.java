@@ -19,56 +19,32 @@ package com.yahoo.ycsb.measurements;
 
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
-import java.util.Collections;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Properties;
 
 /**
  * Record a series of measurements as raw data points without down sampling,
  * optionally write to an output file when configured.
  *
+ * The threads append their data points to the segments of direct memory of one of a few stripes, so the data
+ * points take no heap space and threads rarely wait for each other. On export, the data points of all stripes
+ * are merged in the order of their timestamps and written through a channel, and the percentiles are taken
+ * from a parallel sort of the latencies in a primitive array.
  */
 public class OneMeasurementRaw extends OneMeasurement {
-  /**
-   * One raw data point, two fields: timestamp (ms) when the datapoint is
-   * inserted, and the value.
-   */
-  class RawDataPoint {
-    private final long timestamp;
-    private final int value;
-
-    public RawDataPoint(int value) {
-      this.timestamp = System.currentTimeMillis();
-      this.value = value;
-    }
-
-    public long timeStamp() {
-      return timestamp;
-    }
-
-    public int value() {
-      return value;
-    }
-  }
-
-  class RawDataPointComparator implements Comparator<RawDataPoint> {
-    @Override
-    public int compare(RawDataPoint p1, RawDataPoint p2) {
-      if (p1.value() < p2.value()) {
-        return -1;
-      } else if (p1.value() == p2.value()) {
-        return 0;
-      } else {
-        return 1;
-      }
-    }
-  }
-
   /**
    * Optionally, user can configure an output file to save the raw data points.
    * Default is none, raw results will be written to stdout.
@@ -88,18 +64,96 @@ public class OneMeasurementRaw extends OneMeasurement {
   public static final String NO_SUMMARY_STATS = "measurement.raw.no_summary";
   public static final String NO_SUMMARY_STATS_DEFAULT = "false";
 
-  private final PrintStream outputStream;
+  // A data point is its timestamp (ms) when it is inserted, and the value.
+  private static final int POINT_BYTES = Long.BYTES + Integer.BYTES;
+  private static final int SEGMENT_SHIFT = 12;
+  private static final int SEGMENT_POINTS = 1 << SEGMENT_SHIFT;
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
 
-  private boolean noSummaryStats = false;
+  /**
+   * The data points of one stripe, in the order they were added. A data point takes its timestamp under the
+   * lock of the stripe, so the timestamps of a stripe do not decrease.
+   */
+  private static final class Points {
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer segment;
+    private long count;
+    private long totalLatency;
+
+    private synchronized void add(int value) {
+      int offset = (int) (count & (SEGMENT_POINTS - 1)) * POINT_BYTES;
+      if (offset == 0) {
+        segment = ByteBuffer.allocateDirect(SEGMENT_POINTS * POINT_BYTES).order(ByteOrder.nativeOrder());
+        segments.add(segment);
+      }
+      segment.putLong(offset, System.currentTimeMillis());
+      segment.putInt(offset + Long.BYTES, value);
+      totalLatency += value;
+      count++;
+    }
+
+    // Taken under the lock, so the data points below the count are visible to the reader.
+    private synchronized Snapshot snapshot() {
+      return new Snapshot(segments.toArray(new ByteBuffer[0]), count, totalLatency);
+    }
+  }
+
+  /**
+   * The data points a stripe had when it was read. The segments are only read from.
+   */
+  private static final class Snapshot {
+    private final ByteBuffer[] segments;
+    private final long count;
+    private final long totalLatency;
+
+    private Snapshot(ByteBuffer[] segments, long count, long totalLatency) {
+      this.segments = segments;
+      this.count = count;
+      this.totalLatency = totalLatency;
+    }
+
+    private long timestamp(long index) {
+      return segments[(int) (index >>> SEGMENT_SHIFT)].getLong((int) (index & (SEGMENT_POINTS - 1)) * POINT_BYTES);
+    }
+
+    private int value(long index) {
+      return segments[(int) (index >>> SEGMENT_SHIFT)]
+          .getInt((int) (index & (SEGMENT_POINTS - 1)) * POINT_BYTES + Long.BYTES);
+    }
+  }
 
-  private LinkedList<RawDataPoint> measurements;
-  private long totalLatency = 0;
+  /**
+   * The next data point of one stripe to write out.
+   */
+  private static final class Cursor {
+    private final Snapshot points;
+    private final long end;
+    private long index;
+    private long timestamp;
+
+    private Cursor(Snapshot points) {
+      this.points = points;
+      this.end = points.count;
+      this.timestamp = points.timestamp(0);
+    }
+  }
+
+  private final Stripes<Points> points = new Stripes<Points>() {
+    @Override
+    protected Points newStripe() {
+      return new Points();
+    }
+  };
+
+  private final WritableByteChannel outputChannel;
 
-  // A window of stats to print summary for at the next getSummary() call.
-  // It's supposed to be a one line summary, so we will just print count and
-  // average.
-  private int windowOperations = 0;
-  private long windowTotalLatency = 0;
+  private boolean noSummaryStats = false;
+
+  // The totals at the last getSummary() call; the window to print a summary
+  // for is the difference to them. It's supposed to be a one line summary, so
+  // we will just print count and average.
+  private long summaryOperations = 0;
+  private long summaryTotalLatency = 0;
 
   public OneMeasurementRaw(String name, Properties props) {
     super(name);
@@ -110,32 +164,25 @@ public class OneMeasurementRaw extends OneMeasurement {
           outputFilePath);
 
       try {
-        outputStream = new PrintStream(
-            new FileOutputStream(outputFilePath, true),
-            true);
-      } catch (FileNotFoundException e) {
+        outputChannel = FileChannel.open(Paths.get(outputFilePath), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      } catch (IOException e) {
         throw new RuntimeException("Failed to open raw data output file", e);
       }
 
     } else {
       System.out.println("Raw data measurement: will output to stdout.");
-      outputStream = System.out;
+      outputChannel = Channels.newChannel(System.out);
 
     }
 
     noSummaryStats = Boolean.parseBoolean(props.getProperty(NO_SUMMARY_STATS,
         NO_SUMMARY_STATS_DEFAULT));
-
-    measurements = new LinkedList<>();
   }
 
   @Override
-  public synchronized void measure(int latency) {
-    totalLatency += latency;
-    windowTotalLatency += latency;
-    windowOperations++;
-
-    measurements.add(new RawDataPoint(latency));
+  public void measure(int latency) {
+    points.get().add(latency);
   }
 
   @Override
@@ -143,19 +190,19 @@ public class OneMeasurementRaw extends OneMeasurement {
       throws IOException {
     // Output raw data points first then print out a summary of percentiles to
     // stdout.
-
-    outputStream.println(getName() +
-        " latency raw data: op, timestamp(ms), latency(us)");
-    for (RawDataPoint point : measurements) {
-      outputStream.println(
-          String.format("%s,%d,%d", getName(), point.timeStamp(),
-              point.value()));
-    }
-    if (outputStream != System.out) {
-      outputStream.close();
+    List<Cursor> cursors = new ArrayList<>();
+    long totalOps = 0;
+    long totalLatency = 0;
+    for (Points stripe : points.all()) {
+      Snapshot snapshot = stripe.snapshot();
+      totalLatency += snapshot.totalLatency;
+      if (snapshot.count > 0) {
+        cursors.add(new Cursor(snapshot));
+        totalOps += snapshot.count;
+      }
     }
+    writeDataPoints(cursors);
 
-    int totalOps = measurements.size();
     exporter.write(getName(), "Total Operations", totalOps);
     if (totalOps > 0 && !noSummaryStats) {
       exporter.write(getName(),
@@ -163,44 +210,120 @@ public class OneMeasurementRaw extends OneMeasurement {
       exporter.write(getName(), "Average",
           (double) totalLatency / (double) totalOps);
 
-      Collections.sort(measurements, new RawDataPointComparator());
+      int[] latencies = new int[(int) totalOps];
+      int next = 0;
+      for (Cursor cursor : cursors) {
+        for (long i = 0; i < cursor.end; i++) {
+          latencies[next++] = cursor.points.value(i);
+        }
+      }
+      Arrays.parallelSort(latencies);
 
-      exporter.write(getName(), "Min", measurements.get(0).value());
+      exporter.write(getName(), "Min", latencies[0]);
       exporter.write(
-          getName(), "Max", measurements.get(totalOps - 1).value());
+          getName(), "Max", latencies[latencies.length - 1]);
       exporter.write(
-          getName(), "p1", measurements.get((int) (totalOps * 0.01)).value());
+          getName(), "p1", latencies[(int) (totalOps * 0.01)]);
       exporter.write(
-          getName(), "p5", measurements.get((int) (totalOps * 0.05)).value());
+          getName(), "p5", latencies[(int) (totalOps * 0.05)]);
       exporter.write(
-          getName(), "p50", measurements.get((int) (totalOps * 0.5)).value());
+          getName(), "p50", latencies[(int) (totalOps * 0.5)]);
       exporter.write(
-          getName(), "p90", measurements.get((int) (totalOps * 0.9)).value());
+          getName(), "p90", latencies[(int) (totalOps * 0.9)]);
       exporter.write(
-          getName(), "p95", measurements.get((int) (totalOps * 0.95)).value());
+          getName(), "p95", latencies[(int) (totalOps * 0.95)]);
       exporter.write(
-          getName(), "p99", measurements.get((int) (totalOps * 0.99)).value());
+          getName(), "p99", latencies[(int) (totalOps * 0.99)]);
       exporter.write(getName(), "p99.9",
-          measurements.get((int) (totalOps * 0.999)).value());
+          latencies[(int) (totalOps * 0.999)]);
       exporter.write(getName(), "p99.99",
-          measurements.get((int) (totalOps * 0.9999)).value());
+          latencies[(int) (totalOps * 0.9999)]);
     }
 
     exportStatusCounts(exporter);
   }
 
+  // Writes the header and the data points of all stripes in the order of their timestamps, as lines of
+  // op, timestamp(ms), latency(us).
+  private void writeDataPoints(List<Cursor> cursors) throws IOException {
+    byte[] name = getName().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(Math.max(1 << 16, 2 * name.length + 64));
+    buffer.put(name).put(" latency raw data: op, timestamp(ms), latency(us)".getBytes(StandardCharsets.UTF_8))
+        .put(LINE_SEPARATOR);
+
+    PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, cursors.size()), new Comparator<Cursor>() {
+      @Override
+      public int compare(Cursor c1, Cursor c2) {
+        return Long.compare(c1.timestamp, c2.timestamp);
+      }
+    });
+    queue.addAll(cursors);
+    byte[] digits = new byte[20];
+    while (!queue.isEmpty()) {
+      Cursor cursor = queue.poll();
+      if (buffer.remaining() < name.length + 64) {
+        flush(buffer);
+      }
+      buffer.put(name).put((byte) ',');
+      putDecimal(buffer, cursor.timestamp, digits);
+      buffer.put((byte) ',');
+      putDecimal(buffer, cursor.points.value(cursor.index), digits);
+      buffer.put(LINE_SEPARATOR);
+      if (++cursor.index < cursor.end) {
+        cursor.timestamp = cursor.points.timestamp(cursor.index);
+        queue.add(cursor);
+      }
+    }
+    flush(buffer);
+    if (outputChannel instanceof FileChannel) {
+      outputChannel.close();
+    } else {
+      System.out.flush();
+    }
+  }
+
+  private void flush(ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      outputChannel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static void putDecimal(ByteBuffer buffer, long value, byte[] digits) {
+    if (value < 0) {
+      buffer.put((byte) '-');
+    }
+    int length = 0;
+    do {
+      digits[length++] = (byte) ('0' + Math.abs(value % 10));
+      value /= 10;
+    } while (value != 0);
+    while (length > 0) {
+      buffer.put(digits[--length]);
+    }
+  }
+
   @Override
-  public synchronized String getSummary() {
+  public String getSummary() {
+    long operations = 0;
+    long latency = 0;
+    for (Points stripe : points.all()) {
+      Snapshot snapshot = stripe.snapshot();
+      operations += snapshot.count;
+      latency += snapshot.totalLatency;
+    }
+    long windowOperations = operations - summaryOperations;
     if (windowOperations == 0) {
       return "";
     }
 
     String toReturn = String.format("%s count: %d, average latency(us): %.2f",
         getName(), windowOperations,
-        (double) windowTotalLatency / (double) windowOperations);
+        (double) (latency - summaryTotalLatency) / (double) windowOperations);
 
-    windowTotalLatency = 0;
-    windowOperations = 0;
+    summaryOperations = operations;
+    summaryTotalLatency = latency;
 
     return toReturn;
   }
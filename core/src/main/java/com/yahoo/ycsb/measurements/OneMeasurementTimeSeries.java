@@ -21,25 +21,44 @@ import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Properties;
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
 
 class SeriesUnit {
   /**
-   * @param time
-   * @param average
+   * @param start The time of the first measurement of the series, in milliseconds.
+   * @param time The offset of the unit from the start, in milliseconds.
+   * @param previous The unit before this one, or null for the first one.
    */
-  public SeriesUnit(long time, double average) {
+  public SeriesUnit(long start, long time, SeriesUnit previous) {
+    this.start = start;
     this.time = time;
-    this.average = average;
+    this.previous = previous;
   }
 
+  protected final long start;
   protected final long time;
-  protected final double average;
+  protected final SeriesUnit previous;
+  protected final LongAdder count = new LongAdder();
+  protected final LongAdder sum = new LongAdder();
+
+  protected double average() {
+    return ((double) sum.sum()) / ((double) count.sum());
+  }
 }
 
 /**
  * A time series measurement of a metric, such as READ LATENCY.
+ *
+ * Measuring takes no lock. The units form a list from the current one back to the first; the thread that
+ * first measures in a new unit appends it with a compare-and-set. A unit's average is computed on export, so
+ * a measurement that still goes to the previous unit while another thread moves on is not lost. The totals
+ * are the sums over the units.
  */
 public class OneMeasurementTimeSeries extends OneMeasurement {
 
@@ -50,96 +69,116 @@ public class OneMeasurementTimeSeries extends OneMeasurement {
   public static final String GRANULARITY_DEFAULT = "1000";
 
   private final int granularity;
-  private final Vector<SeriesUnit> measurements;
-
-  private long start = -1;
-  private long currentunit = -1;
-  private long count = 0;
-  private long sum = 0;
-  private long operations = 0;
-  private long totallatency = 0;
-
-  //keep a windowed version of these stats for printing status
-  private int windowoperations = 0;
-  private long windowtotallatency = 0;
-
-  private int min = -1;
-  private int max = -1;
+  private final AtomicReference<SeriesUnit> currentunit = new AtomicReference<>();
+
+  //keep the totals of the last status, the window is the difference to them
+  private long summaryoperations;
+  private long summarytotallatency;
+  // The units before the one that was current at the last status are added up only once, so a status reads just
+  // the units since. A measurement that goes to one of those units that late counts in the export only.
+  private SeriesUnit summedunit;
+  private long summedoperations;
+  private long summedlatency;
+
+  private final LongAccumulator min = new LongAccumulator(new LongBinaryOperator() {
+    @Override
+    public long applyAsLong(long left, long right) {
+      return Math.min(left, right);
+    }
+  }, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(new LongBinaryOperator() {
+    @Override
+    public long applyAsLong(long left, long right) {
+      return Math.max(left, right);
+    }
+  }, Long.MIN_VALUE);
 
   public OneMeasurementTimeSeries(String name, Properties props) {
     super(name);
     granularity = Integer.parseInt(props.getProperty(GRANULARITY, GRANULARITY_DEFAULT));
-    measurements = new Vector<>();
   }
 
-  private synchronized void checkEndOfUnit(boolean forceend) {
+  // Returns the unit of the current time, starting the series or appending the unit if needed.
+  private SeriesUnit checkEndOfUnit() {
     long now = System.currentTimeMillis();
-
-    if (start < 0) {
-      currentunit = 0;
-      start = now;
+    SeriesUnit unit = currentunit.get();
+    if (unit == null) {
+      currentunit.compareAndSet(null, new SeriesUnit(now, 0, null));
+      unit = currentunit.get();
     }
-
-    long unit = ((now - start) / granularity) * granularity;
-
-    if ((unit > currentunit) || (forceend)) {
-      double avg = ((double) sum) / ((double) count);
-      measurements.add(new SeriesUnit(currentunit, avg));
-
-      currentunit = unit;
-
-      count = 0;
-      sum = 0;
+    long time = ((now - unit.start) / granularity) * granularity;
+    while (time > unit.time) {
+      if (currentunit.compareAndSet(unit, new SeriesUnit(unit.start, time, unit))) {
+        return currentunit.get();
+      }
+      unit = currentunit.get();
     }
+    return unit;
   }
 
   @Override
   public void measure(int latency) {
-    checkEndOfUnit(false);
+    SeriesUnit unit = checkEndOfUnit();
 
-    count++;
-    sum += latency;
-    totallatency += latency;
-    operations++;
-    windowoperations++;
-    windowtotallatency += latency;
-
-    if (latency > max) {
-      max = latency;
-    }
-
-    if ((latency < min) || (min < 0)) {
-      min = latency;
-    }
+    unit.count.increment();
+    unit.sum.add(latency);
+    min.accumulate(latency);
+    max.accumulate(latency);
   }
 
 
   @Override
   public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
-    checkEndOfUnit(true);
-
-    exporter.write(getName(), "Operations", operations);
-    exporter.write(getName(), "AverageLatency(us)", (((double) totallatency) / ((double) operations)));
-    exporter.write(getName(), "MinLatency(us)", min);
-    exporter.write(getName(), "MaxLatency(us)", max);
+    long count = 0;
+    long totallatency = 0;
+    for (SeriesUnit unit = currentunit.get(); unit != null; unit = unit.previous) {
+      count += unit.count.sum();
+      totallatency += unit.sum.sum();
+    }
+    exporter.write(getName(), "Operations", count);
+    exporter.write(getName(), "AverageLatency(us)", (((double) totallatency) / ((double) count)));
+    exporter.write(getName(), "MinLatency(us)", count == 0 ? -1 : (int) min.get());
+    exporter.write(getName(), "MaxLatency(us)", count == 0 ? -1 : (int) max.get());
 
     // TODO: 95th and 99th percentile latency
 
     exportStatusCounts(exporter);
-    for (SeriesUnit unit : measurements) {
-      exporter.write(getName(), Long.toString(unit.time), unit.average);
+    if (currentunit.get() == null) {
+      // A series without measurements consists of one empty unit.
+      currentunit.compareAndSet(null, new SeriesUnit(System.currentTimeMillis(), 0, null));
+    }
+    Deque<SeriesUnit> units = new ArrayDeque<>();
+    for (SeriesUnit unit = currentunit.get(); unit != null; unit = unit.previous) {
+      units.addFirst(unit);
+    }
+    for (SeriesUnit unit : units) {
+      exporter.write(getName(), Long.toString(unit.time), unit.average());
     }
   }
 
   @Override
   public String getSummary() {
-    if (windowoperations == 0) {
+    SeriesUnit current = currentunit.get();
+    if (current == null) {
+      return "";
+    }
+    long operations = current.count.sum();
+    long latency = current.sum.sum();
+    for (SeriesUnit unit = current.previous; unit != summedunit; unit = unit.previous) {
+      summedoperations += unit.count.sum();
+      summedlatency += unit.sum.sum();
+    }
+    summedunit = current.previous;
+    operations += summedoperations;
+    latency += summedlatency;
+    if (operations == summaryoperations) {
       return "";
     }
     DecimalFormat d = new DecimalFormat("#.##");
-    double report = ((double) windowtotallatency) / ((double) windowoperations);
-    windowtotallatency = 0;
-    windowoperations = 0;
+    // An operation measured while the totals are read may be counted in the next window.
+    double report = ((double) (latency - summarytotallatency)) / ((double) (operations - summaryoperations));
+    summaryoperations = operations;
+    summarytotallatency = latency;
     return "[" + getName() + " AverageLatency(us)=" + d.format(report) + "]";
   }
 
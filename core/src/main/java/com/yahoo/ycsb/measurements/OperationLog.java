@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A binary log of every operation of a run, read with {@link OperationLogReader}.
+ *
+ * The file starts with a header of {@value #HEADER_BYTES} bytes, followed by regions of {@value #REGION_RECORDS}
+ * records of {@value #RECORD_BYTES} bytes each: the start time of the operation in ns since the log was created
+ * (long), its latency in us (int), the id of its status (short), -1 for none, and the id of its operation
+ * (short). The threads log into one of a few stripes; every stripe claims a region of the file at a time and
+ * writes its records into a memory mapping of it, so logging an operation takes no system call and threads rarely
+ * wait for each other. The operation ids start at 1; records with the id 0 are the unused rest of a region. When
+ * the log is closed, the names of the operations and statuses are appended after the last region and their
+ * offset is written into the header. All numbers are little endian.
+ */
+public final class OperationLog implements Closeable {
+  static final long MAGIC = 0x474c504f42534359L; // "YCSBOPLG"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 64;
+  static final int RECORD_BYTES = 16;
+  static final int REGION_RECORDS = 1 << 16;
+  static final long REGION_BYTES = (long) REGION_RECORDS * RECORD_BYTES;
+
+  // The fields of the header.
+  static final int VERSION_OFFSET = 8;
+  static final int REGION_RECORDS_OFFSET = 12;
+  static final int START_MILLIS_OFFSET = 16;
+  static final int DICTIONARY_OFFSET = 24;
+
+  private static final int MAX_OPERATIONS = 0xffff;
+
+  /**
+   * The region a stripe writes its records into, mapped when the stripe logs its first operation.
+   */
+  private static final class Region {
+    private ByteBuffer buffer;
+  }
+
+  private final String path;
+  private final FileChannel channel;
+  private final long startNanos;
+  // The offset of the next region to claim, or -1 once the log is closed.
+  private final AtomicLong nextRegion = new AtomicLong(HEADER_BYTES);
+  private final List<String> operations = new ArrayList<>();
+  private volatile boolean failed = false;
+
+  private final Stripes<Region> regions = new Stripes<Region>() {
+    @Override
+    protected Region newStripe() {
+      return new Region();
+    }
+  };
+
+  /**
+   * Creates the log, replacing the file if it exists. Start times are logged relative to now.
+   */
+  public OperationLog(String path) throws IOException {
+    this.path = path;
+    channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    startNanos = System.nanoTime();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putLong(0, MAGIC);
+    header.putInt(VERSION_OFFSET, VERSION);
+    header.putInt(REGION_RECORDS_OFFSET, REGION_RECORDS);
+    header.putLong(START_MILLIS_OFFSET, System.currentTimeMillis());
+    channel.write(header, 0);
+  }
+
+  /**
+   * Returns the id operations of this name are logged with. Callers resolve it once and log with the id.
+   */
+  public int operationId(String name) {
+    synchronized (operations) {
+      int index = operations.indexOf(name);
+      if (index < 0) {
+        if (operations.size() == MAX_OPERATIONS) {
+          throw new IllegalStateException("more than " + MAX_OPERATIONS + " operations in " + path);
+        }
+        operations.add(name);
+        index = operations.size() - 1;
+      }
+      return index + 1;
+    }
+  }
+
+  /**
+   * Logs an operation. Operations logged after the log was closed, or after it failed to grow, are dropped.
+   *
+   * @param operationId The id of the operation, as returned by {@link #operationId(String)}.
+   * @param status The status of the operation, or null if it has none.
+   * @param startTimeNanos The start time of the operation, as taken from System.nanoTime().
+   * @param endTimeNanos The end time of the operation, as taken from System.nanoTime().
+   */
+  public void log(int operationId, Status status, long startTimeNanos, long endTimeNanos) {
+    Region region = regions.get();
+    synchronized (region) {
+      ByteBuffer buffer = region.buffer;
+      if (buffer == null || !buffer.hasRemaining()) {
+        buffer = claimRegion();
+        if (buffer == null) {
+          return;
+        }
+        region.buffer = buffer;
+      }
+      buffer.putLong(startTimeNanos - startNanos);
+      buffer.putInt((int) Math.min(Integer.MAX_VALUE, (endTimeNanos - startTimeNanos) / 1000));
+      buffer.putShort((short) (status == null ? -1 : status.getId()));
+      buffer.putShort((short) operationId);
+    }
+  }
+
+  private ByteBuffer claimRegion() {
+    if (failed) {
+      return null;
+    }
+    long offset;
+    do {
+      offset = nextRegion.get();
+      if (offset < 0) {
+        return null;
+      }
+    } while (!nextRegion.compareAndSet(offset, offset + REGION_BYTES));
+    try {
+      // Mapping a region beyond the end of the file grows it.
+      return channel.map(FileChannel.MapMode.READ_WRITE, offset, REGION_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    } catch (IOException e) {
+      failed = true;
+      System.err.println("Could not grow the operation log " + path + ", dropping further operations: " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Appends the names of the operations and statuses and closes the file. The log must not be written to
+   * afterwards; records written into regions that were claimed before are still kept.
+   */
+  @Override
+  public void close() throws IOException {
+    long dictionary = nextRegion.getAndSet(-1);
+    if (dictionary < 0) {
+      return;
+    }
+    List<String> statuses = new ArrayList<>();
+    for (int i = 0; i < Status.getIdCount(); i++) {
+      statuses.add(Status.byId(i).getName());
+    }
+    List<byte[]> names = new ArrayList<>();
+    synchronized (operations) {
+      names.add(encode(operations));
+    }
+    names.add(encode(statuses));
+    ByteBuffer buffer = ByteBuffer.allocate(names.get(0).length + names.get(1).length);
+    buffer.put(names.get(0)).put(names.get(1));
+    buffer.flip();
+    try {
+      long position = dictionary;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+      ByteBuffer offset = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      offset.putLong(0, dictionary);
+      channel.write(offset, DICTIONARY_OFFSET);
+    } finally {
+      channel.close();
+    }
+  }
+
+  // A list of names is its size, followed by the length and UTF-8 bytes of every name.
+  private static byte[] encode(List<String> names) {
+    List<byte[]> encoded = new ArrayList<>();
+    int size = Integer.BYTES;
+    for (String name : names) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      encoded.add(bytes);
+      size += Integer.BYTES + bytes.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(names.size());
+    for (byte[] bytes : encoded) {
+      buffer.putInt(bytes.length).put(bytes);
+    }
+    return buffer.array();
+  }
+}
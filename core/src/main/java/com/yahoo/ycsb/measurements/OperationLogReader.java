@@ -0,0 +1,354 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.HdrHistogram.Histogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads an {@link OperationLog} and reports the percentiles of the latencies of every operation, the return
+ * codes, and the throughput and latency percentiles per time slice. Logs of runs that ended without closing the
+ * log can be read as well; their operations and statuses are reported by id. Operations logged without a status
+ * are reported with the status {@value #NO_STATUS}.
+ *
+ * Usage: java com.yahoo.ycsb.measurements.OperationLogReader file [-slice ms] [-percentiles 95,99]
+ */
+public class OperationLogReader implements Closeable {
+  /**
+   * The name of the status of operations that were logged without one.
+   */
+  public static final String NO_STATUS = "NONE";
+
+  /**
+   * Receives the records of a log.
+   */
+  public interface RecordHandler {
+    /**
+     * @param startNanos The start time of the operation in ns since the log was created.
+     * @param latencyUs The latency of the operation in us.
+     * @param statusId The id of the status, or -1 if the operation had none.
+     * @param operationId The id of the operation.
+     */
+    void record(long startNanos, int latencyUs, int statusId, int operationId);
+  }
+
+  private final FileChannel channel;
+  private final long startMillis;
+  private final long regionBytes;
+  private final long end;
+  private final List<String> operations;
+  private final List<String> statuses;
+
+  public OperationLogReader(String path) throws IOException {
+    channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(OperationLog.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        continue;
+      }
+      if (header.hasRemaining() || header.getLong(0) != OperationLog.MAGIC) {
+        throw new IOException(path + " is not an operation log");
+      }
+      if (header.getInt(OperationLog.VERSION_OFFSET) != OperationLog.VERSION) {
+        throw new IOException(path + " has the unknown version " + header.getInt(OperationLog.VERSION_OFFSET));
+      }
+      regionBytes = (long) header.getInt(OperationLog.REGION_RECORDS_OFFSET) * OperationLog.RECORD_BYTES;
+      startMillis = header.getLong(OperationLog.START_MILLIS_OFFSET);
+      long dictionary = header.getLong(OperationLog.DICTIONARY_OFFSET);
+      if (dictionary == 0) {
+        end = channel.size();
+        operations = Collections.emptyList();
+        statuses = Collections.emptyList();
+      } else {
+        end = dictionary;
+        ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, dictionary, channel.size() - dictionary)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        operations = decode(names);
+        statuses = decode(names);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static List<String> decode(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    List<String> names = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      names.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return names;
+  }
+
+  /**
+   * @return The time the log was created, in ms since the epoch.
+   */
+  public long getStartMillis() {
+    return startMillis;
+  }
+
+  /**
+   * @return The name of an operation, or OPERATION-id if the log has no name for it.
+   */
+  public String getOperation(int operationId) {
+    return operationId <= operations.size() ? operations.get(operationId - 1) : "OPERATION-" + operationId;
+  }
+
+  /**
+   * @return The name of a status, {@value #NO_STATUS} for -1, or STATUS-id if the log has no name for it.
+   */
+  public String getStatus(int statusId) {
+    if (statusId < 0) {
+      return NO_STATUS;
+    }
+    return statusId < statuses.size() ? statuses.get(statusId) : "STATUS-" + statusId;
+  }
+
+  /**
+   * Passes all records to the handler, region by region; within a region, the records are in the order they
+   * were logged.
+   */
+  public void read(RecordHandler handler) throws IOException {
+    for (int region = 0; region < regionCount(); region++) {
+      read(region, handler);
+    }
+  }
+
+  private int regionCount() {
+    return (int) ((end - OperationLog.HEADER_BYTES) / regionBytes);
+  }
+
+  private void read(int regionIndex, RecordHandler handler) throws IOException {
+    ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+        OperationLog.HEADER_BYTES + regionIndex * regionBytes, regionBytes).order(ByteOrder.LITTLE_ENDIAN);
+    for (int record = 0; record < regionBytes; record += OperationLog.RECORD_BYTES) {
+      int operationId = region.getShort(record + 14) & 0xffff;
+      if (operationId == 0) {
+        // The rest of the region was not written.
+        break;
+      }
+      handler.record(region.getLong(record), region.getInt(record + 8), region.getShort(record + 12),
+          operationId);
+    }
+  }
+
+  /**
+   * The latencies and statuses of one operation over the whole run.
+   */
+  private static final class Operation {
+    private final Histogram total = new Histogram(3);
+    private final Map<Integer, Long> statusCounts = new TreeMap<>();
+  }
+
+  /**
+   * The number of operations in one time slice, and the latencies of every operation in it.
+   */
+  private static final class Slice {
+    private long count;
+    private final Map<Integer, Histogram> latencies = new TreeMap<>();
+  }
+
+  /**
+   * Exports the latencies of every operation and its return codes, followed by the throughput and latencies of
+   * every slice of the run, with the slices named by their start in ms since the start of the log. The OVERALL
+   * metric holds the run time and the throughput of all operations, in total and per slice.
+   *
+   * The log is read twice. The first pass takes the totals and the earliest start of every region, and the
+   * second one reads the regions in the order of their earliest start. A slice is exported and dropped as soon
+   * as the regions left all start after it, so only the slices of the regions being read are kept in memory.
+   *
+   * @param exporter The exporter to write to.
+   * @param sliceMillis The length of a time slice in ms.
+   * @param percentiles The percentiles of the latencies to export.
+   */
+  public void export(MeasurementsExporter exporter, final long sliceMillis, List<Double> percentiles)
+      throws IOException {
+    final Map<Integer, Operation> byId = new TreeMap<>();
+    final long[] span = {Long.MAX_VALUE, Long.MIN_VALUE};
+    final long[] regionStarts = new long[regionCount()];
+    for (int i = 0; i < regionStarts.length; i++) {
+      final int region = i;
+      regionStarts[region] = Long.MAX_VALUE;
+      read(region, new RecordHandler() {
+        @Override
+        public void record(long startNanos, int latencyUs, int statusId, int operationId) {
+          Operation operation = byId.get(operationId);
+          if (operation == null) {
+            operation = new Operation();
+            byId.put(operationId, operation);
+          }
+          operation.total.recordValue(latencyUs);
+          Long statusCount = operation.statusCounts.get(statusId);
+          operation.statusCounts.put(statusId, statusCount == null ? 1 : statusCount + 1);
+          regionStarts[region] = Math.min(regionStarts[region], startNanos);
+          span[0] = Math.min(span[0], startNanos);
+          span[1] = Math.max(span[1], startNanos + latencyUs * 1000L);
+        }
+      });
+    }
+
+    long total = 0;
+    for (Operation operation : byId.values()) {
+      total += operation.total.getTotalCount();
+    }
+    double runtimeMs = total == 0 ? 0 : (span[1] - span[0]) / 1e6;
+    exporter.write("OVERALL", "RunTime(ms)", runtimeMs);
+    exporter.write("OVERALL", "Throughput(ops/sec)", runtimeMs == 0 ? 0 : 1000.0 * total / runtimeMs);
+    for (Map.Entry<Integer, Operation> entry : byId.entrySet()) {
+      String name = getOperation(entry.getKey());
+      Operation operation = entry.getValue();
+      exporter.write(name, "Operations", operation.total.getTotalCount());
+      exporter.write(name, "AverageLatency(us)", operation.total.getMean());
+      exporter.write(name, "MinLatency(us)", operation.total.getMinValue());
+      exporter.write(name, "MaxLatency(us)", operation.total.getMaxValue());
+      for (Double percentile : percentiles) {
+        exporter.write(name, OneMeasurementHdrHistogram.ordinal(percentile) + "PercentileLatency(us)",
+            operation.total.getValueAtPercentile(percentile));
+      }
+      for (Map.Entry<Integer, Long> status : operation.statusCounts.entrySet()) {
+        exporter.write(name, "Return=" + getStatus(status.getKey()), status.getValue());
+      }
+    }
+
+    Integer[] order = new Integer[regionStarts.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer r1, Integer r2) {
+        return Long.compare(regionStarts[r1], regionStarts[r2]);
+      }
+    });
+    final TreeMap<Long, Slice> slices = new TreeMap<>();
+    for (int i = 0; i < order.length; i++) {
+      read(order[i], new RecordHandler() {
+        @Override
+        public void record(long startNanos, int latencyUs, int statusId, int operationId) {
+          long start = startNanos / 1000000 / sliceMillis * sliceMillis;
+          Slice slice = slices.get(start);
+          if (slice == null) {
+            slice = new Slice();
+            slices.put(start, slice);
+          }
+          slice.count++;
+          Histogram histogram = slice.latencies.get(operationId);
+          if (histogram == null) {
+            histogram = new Histogram(3);
+            slice.latencies.put(operationId, histogram);
+          }
+          histogram.recordValue(latencyUs);
+        }
+      });
+      // Regions without records start at Long.MAX_VALUE and come last.
+      long complete = i + 1 < order.length && regionStarts[order[i + 1]] != Long.MAX_VALUE
+          ? regionStarts[order[i + 1]] / 1000000 / sliceMillis * sliceMillis : Long.MAX_VALUE;
+      while (!slices.isEmpty() && slices.firstKey() < complete) {
+        Map.Entry<Long, Slice> slice = slices.pollFirstEntry();
+        exportSlice(exporter, slice.getKey(), slice.getValue(), sliceMillis, percentiles);
+      }
+    }
+  }
+
+  private void exportSlice(MeasurementsExporter exporter, long start, Slice slice, long sliceMillis,
+                           List<Double> percentiles) throws IOException {
+    String prefix = start + " ";
+    exporter.write("OVERALL", prefix + "Throughput(ops/sec)", 1000.0 * slice.count / sliceMillis);
+    for (Map.Entry<Integer, Histogram> entry : slice.latencies.entrySet()) {
+      String name = getOperation(entry.getKey());
+      Histogram histogram = entry.getValue();
+      exporter.write(name, prefix + "Throughput(ops/sec)", 1000.0 * histogram.getTotalCount() / sliceMillis);
+      exporter.write(name, prefix + "AverageLatency(us)", histogram.getMean());
+      for (Double percentile : percentiles) {
+        exporter.write(name, prefix + OneMeasurementHdrHistogram.ordinal(percentile) + "PercentileLatency(us)",
+            histogram.getValueAtPercentile(percentile));
+      }
+      exporter.write(name, prefix + "MaxLatency(us)", histogram.getMaxValue());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private static void usageMessage() {
+    System.err.println("Usage: java com.yahoo.ycsb.measurements.OperationLogReader file [options]");
+    System.err.println("Options:");
+    System.err.println("  -slice ms: The length of the time slices to report, default 1000");
+    System.err.println("  -percentiles list: The latency percentiles to report, default "
+        + OneMeasurementHdrHistogram.PERCENTILES_PROPERTY_DEFAULT);
+  }
+
+  public static void main(String[] args) throws IOException {
+    String file = null;
+    long sliceMillis = 1000;
+    String percentiles = OneMeasurementHdrHistogram.PERCENTILES_PROPERTY_DEFAULT;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("-slice")) {
+          sliceMillis = Long.parseLong(args[++i]);
+        } else if (args[i].equals("-percentiles")) {
+          percentiles = args[++i];
+        } else if (file == null && !args[i].startsWith("-")) {
+          file = args[i];
+        } else {
+          throw new IllegalArgumentException(args[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      file = null;
+    }
+    if (file == null || sliceMillis <= 0) {
+      usageMessage();
+      System.exit(1);
+    }
+    List<Double> values = new ArrayList<>();
+    for (String percentile : percentiles.split(",")) {
+      values.add(Double.parseDouble(percentile));
+    }
+    try (OperationLogReader reader = new OperationLogReader(file)) {
+      TextMeasurementsExporter exporter = new TextMeasurementsExporter(System.out);
+      try {
+        reader.export(exporter, sliceMillis, values);
+      } finally {
+        exporter.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.measurements;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The parts of a measurement that the threads recording into it share. There is a fixed number of stripes, about
+ * as many as there are processors, and a thread records into the stripe its id hashes to, so few threads write
+ * the same stripe at a time however many threads record; readers merge all stripes. Stripes must allow
+ * concurrent writers. They are created when a thread first records into them and live as long as the
+ * measurement, so the memory of a measurement does not grow with the number of threads.
+ *
+ * @param <T> The type of the stripes.
+ */
+abstract class Stripes<T> {
+  private final AtomicReferenceArray<T> stripes;
+
+  Stripes() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    stripes = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(1, processors * 2 - 1)));
+  }
+
+  /**
+   * Creates a stripe.
+   */
+  protected abstract T newStripe();
+
+  /**
+   * @return The stripe of the calling thread.
+   */
+  T get() {
+    // Thread ids are mostly consecutive, spread them over the stripes anyway.
+    long hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    int index = (int) (hash >>> 32) & (stripes.length() - 1);
+    T stripe = stripes.get(index);
+    if (stripe == null) {
+      T created = newStripe();
+      if (stripes.compareAndSet(index, null, created)) {
+        stripe = created;
+      } else {
+        stripe = stripes.get(index);
+      }
+    }
+    return stripe;
+  }
+
+  /**
+   * @return The stripes that were recorded into so far.
+   */
+  List<T> all() {
+    List<T> created = new ArrayList<>(stripes.length());
+    for (int i = 0; i < stripes.length(); i++) {
+      T stripe = stripes.get(i);
+      if (stripe != null) {
+        created.add(stripe);
+      }
+    }
+    return created;
+  }
+}
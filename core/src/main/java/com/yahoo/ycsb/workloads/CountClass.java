@@ -4,6 +4,7 @@ import com.yahoo.ycsb.Client;
 import com.yahoo.ycsb.generator.*;
 
 import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
 /**
 
  */
@@ -53,14 +54,21 @@ public class CountClass {
 
 
   // these need to be collection / relation specific
+  public final String name;
+  // Index of the table in its MultiTableSupport
+  public final int id;
   public NumberGenerator keysequence;
   public NumberGenerator keychooser;
   public AcknowledgedCounterGenerator transactioninsertkeysequence;
+  // Keys the key chooser drew beyond the acknowledged records, which were drawn again
+  public final LongAdder rejectedkeys = new LongAdder();
   public long insertstart;
   public long insertcount;
   public long recordcount;
 
-  public CountClass(Properties p, String name) {
+  public CountClass(Properties p, String name, int id) {
+    this.name = name;
+    this.id = id;
 
     recordcount = Long.parseLong(p.getProperty("count." + name, "1000"));
     insertstart =
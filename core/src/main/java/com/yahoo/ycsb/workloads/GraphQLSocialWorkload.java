@@ -20,8 +20,17 @@ package com.yahoo.ycsb.workloads;
 import com.yahoo.ycsb.*;
 import com.yahoo.ycsb.generator.*;
 import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  This represents a Social Network application setting
@@ -93,6 +102,23 @@ public class GraphQLSocialWorkload extends Workload {
 
   protected String table;
 
+  /**
+   * The value of the table property that loads all models and relations in one run.
+   */
+  public static final String ALL_TABLES = "all";
+
+  /**
+   * The name of the property for the order in which table=all loads the tables. Phases are separated
+   * by ';' and run one after the other, the tables of a phase are loaded concurrently by all client
+   * threads. Tables that are not listed are loaded in a last phase.
+   */
+  public static final String LOAD_PHASES_PROPERTY = "loadphases";
+
+  /**
+   * The default load phases: records only reference records of earlier phases.
+   */
+  public static final String LOAD_PHASES_PROPERTY_DEFAULT = "user,group;post;comment,like,friendship";
+
   /**
    * The name of the property for the proportion of transactions that are reads.
    */
@@ -134,12 +160,16 @@ public class GraphQLSocialWorkload extends Workload {
    */
   public static final String INSERTION_RETRY_INTERVAL = "core_workload_insertion_retry_interval";
   public static final String INSERTION_RETRY_INTERVAL_DEFAULT = "3";
-  protected DiscreteGenerator operationchooser;
+  protected OperationDescriptor[] operations;
+  protected AliasTableGenerator operationchooser;
   protected NumberGenerator scanlength;
   protected long fieldcount;
   protected int insertionRetryLimit;
   protected int insertionRetryInterval;
   protected MultiTableSupport multiTable;
+  // The table that is loaded unless all tables are.
+  protected CountClass insertTable;
+  protected LoadPhase[] loadPhases;
 
 
   private Measurements measurements = Measurements.getMeasurements();
@@ -156,14 +186,79 @@ public class GraphQLSocialWorkload extends Workload {
    */
   @Override
   public void init(Properties p) throws WorkloadException {
-    multiTable = new MultiTableSupport(p);
+    multiTable = MultiTableSupport.getInstance(p);
     table = p.getProperty(TABLENAME_PROPERTY, TABLENAME_PROPERTY_DEFAULT);
-    operationchooser = createOperationGenerator(p);
+    insertTable = multiTable.getCounter(table);
+    operations = createOperations(p, multiTable);
+    if (operations.length > 0) {
+      double[] weights = new double[operations.length];
+      for (int i = 0; i < operations.length; i++) {
+        weights[i] = operations[i].proportion;
+      }
+      operationchooser = new AliasTableGenerator(weights);
+    }
 
     insertionRetryLimit = Integer.parseInt(p.getProperty(
         INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
     insertionRetryInterval = Integer.parseInt(p.getProperty(
         INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
+
+    if (ALL_TABLES.equals(table)) {
+      // The client threads run until doInsert reports that all phases are done. A fixed operation count
+      // would end threads in the middle of a phase, while the other threads wait for its inserts.
+      if (p.containsKey(Client.INSERT_COUNT_PROPERTY)
+          || Long.parseLong(p.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT)) != 0) {
+        throw new WorkloadException(TABLENAME_PROPERTY + "=" + ALL_TABLES + " loads count.<table> records per "
+            + "table, " + Client.RECORD_COUNT_PROPERTY + " and " + Client.INSERT_COUNT_PROPERTY + " must not be set.");
+      }
+      loadPhases = createLoadPhases(p);
+    }
+  }
+
+  private LoadPhase[] createLoadPhases(Properties p) throws WorkloadException {
+    Set<String> unscheduled = new LinkedHashSet<>(multiTable.counters.keySet());
+    List<LoadPhase> phases = new ArrayList<>();
+    for (String phase : p.getProperty(LOAD_PHASES_PROPERTY, LOAD_PHASES_PROPERTY_DEFAULT).split(";")) {
+      List<String> tables = new ArrayList<>();
+      for (String name : phase.split(",")) {
+        name = name.trim();
+        if (name.isEmpty()) {
+          continue;
+        }
+        if (!unscheduled.remove(name)) {
+          // The default schedule names all tables of the social workload, a workload may use fewer of them.
+          if (p.containsKey(LOAD_PHASES_PROPERTY)) {
+            throw new WorkloadException("Table " + name + " of " + LOAD_PHASES_PROPERTY
+                + " is not one of the models and relations or is listed twice.");
+          }
+          continue;
+        }
+        tables.add(name);
+      }
+      if (!tables.isEmpty()) {
+        phases.add(new LoadPhase(tables));
+      }
+    }
+    if (!unscheduled.isEmpty()) {
+      phases.add(new LoadPhase(new ArrayList<>(unscheduled)));
+    }
+    return phases.toArray(new LoadPhase[phases.size()]);
+  }
+
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    return loadPhases == null ? null : new LoadState(mythreadid);
+  }
+
+  @Override
+  public void cleanup() throws WorkloadException {
+    multiTable.reportRejectedKeys(measurements);
+    if (loadPhases == null) {
+      return;
+    }
+    for (LoadPhase phase : loadPhases) {
+      phase.report(measurements);
+    }
   }
 
   /**
@@ -174,15 +269,63 @@ public class GraphQLSocialWorkload extends Workload {
    */
   @Override
   public boolean doInsert(DB db, Object threadstate) {
-    int keynum = multiTable.counters.get(table).keysequence.nextValue().intValue();
+    if (loadPhases != null) {
+      return doLoadPhaseInsert(db, (LoadState) threadstate);
+    }
+    int keynum = insertTable.keysequence.nextValue().intValue();
+    return insert(db, table, multiTable.buildKeyName(keynum, table));
+  }
+
+  // Inserts the next record of the current load phase of the thread. Once the phase has no records left,
+  // the thread waits until the inserts of all threads in this phase completed and moves on to the next one.
+  private boolean doLoadPhaseInsert(DB db, LoadState state) {
+    while (state.phase < loadPhases.length) {
+      LoadPhase phase = loadPhases[state.phase];
+      int index = phase.claim(state);
+      if (index >= 0) {
+        state.issued++;
+        if (insert(db, phase.tables[index], multiTable.buildKeyName(state.keynum, phase.tables[index]))) {
+          return true;
+        }
+        // This thread ends, but the phase must still see all of its inserts.
+        finishPhase(db, state, phase);
+        return false;
+      }
+      if (!finishPhase(db, state, phase)) {
+        return false;
+      }
+      state.nextPhase();
+    }
+    return false;
+  }
 
-    String dbkey = multiTable.buildKeyName(keynum, table);
+  // Accounts the inserts of this thread in the phase and waits for the other threads.
+  private boolean finishPhase(DB db, LoadState state, LoadPhase phase) {
+    if (db instanceof PipelinedDB) {
+      ((PipelinedDB) db).drain();
+    }
+    phase.done(state.issued);
+    state.issued = 0;
+    try {
+      while (!phase.await(100)) {
+        if (isStopRequested()) {
+          return false;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    return true;
+  }
+
+  private boolean insert(DB db, String tablename, String dbkey) {
     HashMap<String, ByteIterator> values = new HashMap<>();
 
     Status status;
     int numOfRetries = 0;
     do {
-      status = db.insert(table, dbkey, values);
+      status = db.insert(tablename, dbkey, values);
       if (null != status && status.isOk()) {
         break;
       }
@@ -218,79 +361,251 @@ public class GraphQLSocialWorkload extends Workload {
    */
   @Override
   public boolean doTransaction(DB db, Object threadstate) {
-    String operation = operationchooser.nextString();
-    if (operation == null) {
+    if (operationchooser == null) {
       return false;
     }
-
-    if (operation.startsWith("read.")) {
-      doTransactionRead(db, operation.substring(5));
-    } else if (operation.startsWith("update.")) {
-      doTransactionUpdate(db, operation.substring(7));
-    } else if (operation.startsWith("insert.")) {
-      doTransactionInsert(db, operation.substring(7));
-    } else {
+    OperationDescriptor operation = operations[operationchooser.nextInt()];
+    switch (operation.type) {
+    case READ:
       doTransactionRead(db, operation);
+      break;
+    case UPDATE:
+      doTransactionUpdate(db, operation);
+      break;
+    case INSERT:
+      doTransactionInsert(db, operation);
+      break;
+    default:
+      throw new IllegalStateException(operation.type.name());
     }
-
     return true;
   }
 
-
-  public void doTransactionRead(DB db, String operation) {
-    String query = operation.split("_")[0];
-    String tablename = operation.split("_")[1];
-    db.read(query, multiTable.nextKeyname(tablename), null, null);
-  }
-
-  public void doTransactionUpdate(DB db, String operation) {
-    String query = operation.split("_")[0];
-    String tablename = operation.split("_")[1];
-    db.update(query, multiTable.nextKeyname(tablename), null);
+  public void doTransactionRead(DB db, OperationDescriptor operation) {
+    db.read(operation.query, multiTable.nextKeyname(operation.table), null, null);
   }
 
-  public void doTransactionInsert(DB db, String operation) {
-    String query = operation.split("_")[0];
-    db.insert(query, "", null);
+  public void doTransactionUpdate(DB db, OperationDescriptor operation) {
+    db.update(operation.query, multiTable.nextKeyname(operation.table), null);
   }
 
-  static void addQueryProportions(Properties p, DiscreteGenerator operationchooser, String op, Double opProportion) {
-    for (String queryWithTable : getNames(p,  op +".queries")) {
-      String query = queryWithTable.split("_")[0];
-      final double proportion = Double.parseDouble(
-          p.getProperty(op + "." + query + ".proportion", "0"));
-      if (proportion > 0) {
-        operationchooser.addValue(opProportion * proportion, op + "." + queryWithTable);
-      }
+  /**
+   * Inserts a record with the next key of the table's insert sequence. The key is acknowledged once the insert
+   * completed, which makes the record available to the key choosers, and the latest distribution in particular.
+   * Failed inserts are acknowledged too, as the choosers only see the keys up to the first unacknowledged one.
+   */
+  public void doTransactionInsert(DB db, OperationDescriptor operation) {
+    if (operation.table == null) {
+      db.insert(operation.query, "", null);
+      return;
+    }
+    final AcknowledgedCounterGenerator sequence = operation.table.transactioninsertkeysequence;
+    final long keynum = sequence.nextValue();
+    String dbkey = multiTable.buildKeyName(keynum, operation.table.name);
+    if (db instanceof PipelinedDB) {
+      ((PipelinedDB) db).insertAsync(operation.query, dbkey, null).whenComplete(new BiConsumer<Status, Throwable>() {
+        @Override
+        public void accept(Status status, Throwable failure) {
+          sequence.acknowledge(keynum);
+        }
+      });
+      return;
+    }
+    try {
+      db.insert(operation.query, dbkey, null);
+    } finally {
+      sequence.acknowledge(keynum);
     }
   }
 
   /**
-   * Creates a weighted discrete values with database operations for a workload to perform.
-   * Weights/proportions are read from the properties list and defaults are used
-   * when values are not configured.
-   * Current operations are "READ", "UPDATE", "INSERT".
+   * Resolves the queries of the transaction phase with a positive proportion. Queries are configured as
+   * [op].queries=[query_table,...] with the weight [op].[query].proportion within the operation type, which
+   * is weighted with [op]proportion. Operation types are "read", "update" and "insert".
    *
-   * @param p The properties list to pull weights from.
-   * @return A generator that can be used to determine the next operation to perform.
-   * @throws IllegalArgumentException if the properties object was null.
+   * @param p The properties list to pull the queries and weights from.
+   * @param multiTable The tables the queries choose their keys from.
+   * @return The operations in the order read, update, insert.
+   * @throws WorkloadException if a read or update query names a table that is not a model or relation.
    */
-  protected static DiscreteGenerator createOperationGenerator(final Properties p) {
-    if (p == null) {
-      throw new IllegalArgumentException("Properties object cannot be null");
-    }
+  protected static OperationDescriptor[] createOperations(Properties p, MultiTableSupport multiTable)
+      throws WorkloadException {
     final double readproportion = Double.parseDouble(
         p.getProperty(READ_PROPORTION_PROPERTY, READ_PROPORTION_PROPERTY_DEFAULT));
     final double updateproportion = Double.parseDouble(
         p.getProperty(UPDATE_PROPORTION_PROPERTY, UPDATE_PROPORTION_PROPERTY_DEFAULT));
     final double insertproportion = Double.parseDouble(
         p.getProperty(INSERT_PROPORTION_PROPERTY, INSERT_PROPORTION_PROPERTY_DEFAULT));
-    final DiscreteGenerator operationchooser = new DiscreteGenerator();
 
-    addQueryProportions(p, operationchooser, "read", readproportion);
-    addQueryProportions(p, operationchooser, "update", updateproportion);
-    addQueryProportions(p, operationchooser, "insert", insertproportion);
+    List<OperationDescriptor> operations = new ArrayList<>();
+    addOperations(p, multiTable, operations, OperationType.READ, readproportion);
+    addOperations(p, multiTable, operations, OperationType.UPDATE, updateproportion);
+    addOperations(p, multiTable, operations, OperationType.INSERT, insertproportion);
+    return operations.toArray(new OperationDescriptor[operations.size()]);
+  }
+
+  private static void addOperations(Properties p, MultiTableSupport multiTable, List<OperationDescriptor> operations,
+                                    OperationType type, double opProportion) throws WorkloadException {
+    String op = type.name().toLowerCase();
+    for (String queryWithTable : getNames(p, op + ".queries")) {
+      String[] parts = queryWithTable.trim().split("_");
+      final double proportion = opProportion * Double.parseDouble(
+          p.getProperty(op + "." + parts[0] + ".proportion", "0"));
+      if (proportion <= 0) {
+        continue;
+      }
+      CountClass table = parts.length > 1 ? multiTable.getCounter(parts[1]) : null;
+      if (table == null && type != OperationType.INSERT) {
+        throw new WorkloadException("The table of " + op + " query " + queryWithTable
+            + " is not one of the models and relations.");
+      }
+      operations.add(new OperationDescriptor(type, parts[0], table, proportion));
+    }
+  }
+
+  /**
+   * The kinds of operations of the transaction phase.
+   */
+  public enum OperationType {
+    READ, UPDATE, INSERT
+  }
+
+  /**
+   * A query of the transaction phase with its table, resolved once so that choosing and dispatching an
+   * operation does no string work.
+   */
+  public static final class OperationDescriptor {
+    private final OperationType type;
+    private final String query;
+    private final CountClass table;
+    private final double proportion;
+
+    OperationDescriptor(OperationType type, String query, CountClass table, double proportion) {
+      this.type = type;
+      this.query = query;
+      this.table = table;
+      this.proportion = proportion;
+    }
+
+    public OperationType getType() {
+      return type;
+    }
+
+    public String getQuery() {
+      return query;
+    }
+
+    /**
+     * @return The table keys are chosen from, null for inserts of a table that is not loaded.
+     */
+    public CountClass getTable() {
+      return table;
+    }
+
+    public double getProportion() {
+      return proportion;
+    }
+  }
+
+  /**
+   * The tables that are loaded concurrently in one phase of a multi table load.
+   */
+  protected final class LoadPhase {
+    private final String[] tables;
+    private final CountClass[] counters;
+    private final long[] ends;
+    private final AtomicLong[] inserted;
+    // Records of the phase that have not been inserted and completed yet.
+    private final AtomicLong remaining = new AtomicLong();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private final AtomicLong startNanos = new AtomicLong();
+    private volatile long endNanos;
+
+    LoadPhase(List<String> names) {
+      tables = names.toArray(new String[names.size()]);
+      counters = new CountClass[tables.length];
+      ends = new long[tables.length];
+      inserted = new AtomicLong[tables.length];
+      for (int i = 0; i < tables.length; i++) {
+        counters[i] = multiTable.counters.get(tables[i]);
+        ends[i] = counters[i].insertstart + counters[i].insertcount;
+        inserted[i] = new AtomicLong();
+        remaining.addAndGet(counters[i].insertcount);
+      }
+      if (remaining.get() == 0) {
+        completed.countDown();
+      }
+    }
+
+    /**
+     * Claims the next key of one of the tables that has records left, rotating over the tables so they
+     * are loaded side by side.
+     *
+     * @return The index of the table, or -1 if the phase has no records left.
+     */
+    int claim(LoadState state) {
+      startNanos.compareAndSet(0, System.nanoTime());
+      for (int i = 0; i < tables.length; i++) {
+        int index = (state.next + i) % tables.length;
+        if (state.exhausted[index]) {
+          continue;
+        }
+        long keynum = counters[index].keysequence.nextValue().longValue();
+        if (keynum < ends[index]) {
+          state.next = index + 1;
+          state.keynum = keynum;
+          inserted[index].incrementAndGet();
+          return index;
+        }
+        state.exhausted[index] = true;
+      }
+      return -1;
+    }
+
+    void done(long count) {
+      if (remaining.addAndGet(-count) == 0) {
+        endNanos = System.nanoTime();
+        completed.countDown();
+      }
+    }
 
-    return operationchooser;
+    boolean await(long timeoutMs) throws InterruptedException {
+      return completed.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    void report(Measurements m) {
+      if (endNanos == 0) {
+        return;
+      }
+      // The tables of a phase share the client threads, so each is measured over the whole phase.
+      long runtimeMs = TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos.get());
+      for (int i = 0; i < tables.length; i++) {
+        m.reportRuntime("INSERT-" + tables[i], inserted[i].get(), runtimeMs);
+      }
+    }
+  }
+
+  /**
+   * The progress of one client thread through the load phases.
+   */
+  protected final class LoadState {
+    private int phase;
+    private int next;
+    private boolean[] exhausted;
+    private long keynum;
+    // Inserts of the current phase that have not been accounted for in the phase yet.
+    private long issued;
+
+    LoadState(int threadid) {
+      next = threadid;
+      exhausted = new boolean[loadPhases.length == 0 ? 0 : loadPhases[0].tables.length];
+    }
+
+    void nextPhase() {
+      phase++;
+      if (phase < loadPhases.length) {
+        exhausted = new boolean[loadPhases[phase].tables.length];
+      }
+    }
   }
 }
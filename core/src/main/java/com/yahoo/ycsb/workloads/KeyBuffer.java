@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer a key is encoded into: table name, zero padding and the decimal digits of the key
+ * number. Encoding does not allocate once the buffer is large enough for the longest key.
+ *
+ * The buffer is overwritten by the next key that is encoded into it, so the content must be consumed
+ * (copied into a request, or turned into a String with {@link #toString()}) before that.
+ */
+public final class KeyBuffer implements CharSequence {
+  // Digits of Long.MAX_VALUE
+  private static final int MAX_DIGITS = 19;
+
+  private char[] chars = new char[32];
+  private int length;
+
+  /**
+   * Encodes a key, replacing the previous content.
+   *
+   * @param table The table name, which is the prefix of the key.
+   * @param keynum The non-negative key number.
+   * @param zeropadding The minimum number of digits, shorter numbers are padded with leading zeros.
+   * @return This buffer.
+   */
+  public KeyBuffer encode(String table, long keynum, int zeropadding) {
+    if (keynum < 0) {
+      // Not produced by the key generators, but keep the format of Long.toString.
+      String value = Long.toString(keynum);
+      return encode(table, value, zeropadding);
+    }
+    int digits = digits(keynum);
+    int prefix = table.length();
+    int fill = Math.max(zeropadding - digits, 0);
+    ensureCapacity(prefix + fill + digits);
+    table.getChars(0, prefix, chars, 0);
+    Arrays.fill(chars, prefix, prefix + fill, '0');
+    length = prefix + fill + digits;
+    long value = keynum;
+    for (int i = length - 1; i >= prefix + fill; i--) {
+      chars[i] = (char) ('0' + (int) (value % 10));
+      value /= 10;
+    }
+    return this;
+  }
+
+  private KeyBuffer encode(String table, String value, int zeropadding) {
+    int fill = Math.max(zeropadding - value.length(), 0);
+    ensureCapacity(table.length() + fill + value.length());
+    table.getChars(0, table.length(), chars, 0);
+    Arrays.fill(chars, table.length(), table.length() + fill, '0');
+    value.getChars(0, value.length(), chars, table.length() + fill);
+    length = table.length() + fill + value.length();
+    return this;
+  }
+
+  private static int digits(long value) {
+    long bound = 10;
+    for (int i = 1; i < MAX_DIGITS; i++) {
+      if (value < bound) {
+        return i;
+      }
+      bound *= 10;
+    }
+    return MAX_DIGITS;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > chars.length) {
+      chars = new char[Math.max(capacity, chars.length << 1)];
+    }
+  }
+
+  /**
+   * @return The backing array; only the first {@link #length()} chars are valid.
+   */
+  public char[] array() {
+    return chars;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index >= length) {
+      throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+    }
+    return chars[index];
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().substring(start, end);
+  }
+
+  /**
+   * @return The key as a String, for callers that keep the key beyond the next encoding.
+   */
+  @Override
+  public String toString() {
+    return new String(chars, 0, length);
+  }
+}
@@ -2,12 +2,23 @@ package com.yahoo.ycsb.workloads;
 
 import com.yahoo.ycsb.Utils;
 import com.yahoo.ycsb.generator.ExponentialGenerator;
-
-import java.util.HashMap;
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.generator.NumberGenerator;
+import com.yahoo.ycsb.generator.ScrambledZipfianGenerator;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
 /**
  * Bundles needed functionality to express multitable support.
+ *
+ * Tables are looked up by name once, when a workload or binding is set up, and addressed by their
+ * {@link CountClass} or its id afterwards. Every thread chooses keys with its own copies of the key choosers,
+ * which share precomputed state such as the zeta of a zipfian distribution, so choosing a key takes no lock and
+ * writes no state that other threads read.
  */
 public class MultiTableSupport {
   public static final String ZERO_PADDING_PROPERTY = "zeropadding";
@@ -17,18 +28,61 @@ public class MultiTableSupport {
   protected boolean orderedinserts;
   protected int zeropadding;
 
-  protected HashMap<String, CountClass> counters = new HashMap<>();
+  // The tables by name, in the order of the models and relations, and by id.
+  protected final Map<String, CountClass> counters;
+  private final CountClass[] tables;
+
+  // The key choosers of the calling thread, indexed by table id.
+  private final ThreadLocal<NumberGenerator[]> keychoosers = new ThreadLocal<NumberGenerator[]>() {
+    @Override
+    protected NumberGenerator[] initialValue() {
+      NumberGenerator[] choosers = new NumberGenerator[tables.length];
+      for (int i = 0; i < tables.length; i++) {
+        choosers[i] = tables[i].keychooser == null ? null : tables[i].keychooser.copyForThread();
+      }
+      return choosers;
+    }
+  };
 
+  // Keys are encoded into a buffer per thread, which is reused for every key.
+  private static final ThreadLocal<KeyBuffer> KEY_BUFFER = new ThreadLocal<KeyBuffer>() {
+    @Override
+    protected KeyBuffer initialValue() {
+      return new KeyBuffer();
+    }
+  };
+
+  // The tables shared by the workload and the binding instances of a run, which all get the same properties.
+  private static final Map<Properties, MultiTableSupport> SHARED = new IdentityHashMap<>();
+
+  /**
+   * Returns the tables of a run, so the workload and all binding instances share one key space, and the
+   * choosers and key sequences of a table are set up only once.
+   *
+   * @param p The properties of the run.
+   */
+  public static MultiTableSupport getInstance(Properties p) {
+    synchronized (SHARED) {
+      MultiTableSupport multiTable = SHARED.get(p);
+      if (multiTable == null) {
+        multiTable = new MultiTableSupport(p);
+        SHARED.put(p, multiTable);
+      }
+      return multiTable;
+    }
+  }
 
   public MultiTableSupport(Properties p){
-
+    Map<String, CountClass> byName = new LinkedHashMap<>();
     for (String model : getNames(p, "models")) {
-      counters.put(model, new CountClass(p, model));
+      addTable(p, model, byName);
     }
 
     for (String relation : getNames(p, "relations")) {
-      counters.put(relation, new CountClass(p, relation));
+      addTable(p, relation, byName);
     }
+    counters = Collections.unmodifiableMap(byName);
+    tables = byName.values().toArray(new CountClass[byName.size()]);
 
     zeropadding =
         Integer.parseInt(p.getProperty(ZERO_PADDING_PROPERTY, ZERO_PADDING_PROPERTY_DEFAULT));
@@ -41,45 +95,118 @@ public class MultiTableSupport {
 
   }
 
+  private static void addTable(Properties p, String name, Map<String, CountClass> byName) {
+    CountClass previous = byName.get(name);
+    // A name that is listed twice keeps its id.
+    byName.put(name, new CountClass(p, name, previous == null ? byName.size() : previous.id));
+  }
+
   static String[] getNames(Properties p, String type) {
     String raw = p.getProperty(type, "[]");
     return raw.substring(1, raw.length() - 1).split(",");
   }
 
   public String buildKeyName(long keynum, String table2) {
+    return encodeKey(keynum, table2).toString();
+  }
+
+  /**
+   * Encodes a key into the buffer of the calling thread, which is overwritten by the next key the thread
+   * encodes.
+   */
+  public KeyBuffer encodeKey(long keynum, String table) {
     if (!orderedinserts) {
       keynum = Utils.hash(keynum);
     }
-    String value = Long.toString(keynum);
-    int fill = zeropadding - value.length();
-    String prekey = table2;
-    for (int i = 0; i < fill; i++) {
-      prekey += '0';
-    }
-    return prekey + value;
+    return KEY_BUFFER.get().encode(table, keynum, zeropadding);
+  }
+
+  public String nextKeyname(String name) {
+    return nextKey(counters.get(name)).toString();
   }
 
-  public String buildTransactionKeyName(String table2){
-    int keynum = counters.get(table2).keysequence.nextValue().intValue();
+  /**
+   * Chooses an existing key of a table that was resolved before, without looking it up by name.
+   */
+  public String nextKeyname(CountClass counter) {
+    return nextKey(counter).toString();
+  }
 
-    return buildKeyName(keynum, table2 + "X");
+  /**
+   * Chooses an existing key of a table. Callers that choose keys of the same table repeatedly should resolve
+   * it once with {@link #getCounter(String)} or {@link #getTableId(String)}.
+   *
+   * @see #encodeKey(long, String)
+   */
+  public KeyBuffer nextKey(String name) {
+    return nextKey(counters.get(name));
   }
 
+  /**
+   * Chooses an existing key of a table by its id.
+   *
+   * @see #encodeKey(long, String)
+   */
+  public KeyBuffer nextKey(int id) {
+    return nextKey(tables[id]);
+  }
 
-  public String nextKeyname(String name) {
+  /**
+   * Chooses an existing key of a table that was resolved before. The exponential and zipfian choosers draw
+   * from the records acknowledged so far directly; other choosers draw again while the key is beyond them,
+   * which is counted in {@link CountClass#rejectedkeys}.
+   *
+   * @see #encodeKey(long, String)
+   */
+  public KeyBuffer nextKey(CountClass counter) {
+    NumberGenerator keychooser = keychoosers.get()[counter.id];
+    long last = counter.transactioninsertkeysequence.lastValue();
     long keynum;
-    CountClass counter = counters.get(name);
-    if (counter.keychooser instanceof ExponentialGenerator) {
-      do {
-        keynum = counter.transactioninsertkeysequence.lastValue() -
-            counter.keychooser.nextValue().intValue();
-      } while (keynum < 0);
+    if (keychooser instanceof ExponentialGenerator) {
+      // The most recent records are the most popular ones.
+      keynum = last - (long) ((ExponentialGenerator) keychooser).nextTruncated(last + 1);
+    } else if (keychooser instanceof ScrambledZipfianGenerator) {
+      keynum = ((ScrambledZipfianGenerator) keychooser).nextLong(last);
     } else {
-      do {
-        keynum = counter.keychooser.nextValue().intValue();
-      } while (keynum > counter.transactioninsertkeysequence.lastValue());
+      keynum = keychooser.nextValue().intValue();
+      while (keynum > last) {
+        counter.rejectedkeys.increment();
+        keynum = keychooser.nextValue().intValue();
+        last = counter.transactioninsertkeysequence.lastValue();
+      }
+    }
+    return encodeKey(keynum, counter.name);
+  }
+
+  /**
+   * Reports the keys each table's chooser rejected as KEYCHOOSER-REJECTED-[table].
+   */
+  public void reportRejectedKeys(Measurements measurements) {
+    for (CountClass counter : tables) {
+      measurements.reportCount("KEYCHOOSER-REJECTED-" + counter.name, counter.rejectedkeys.sum());
     }
-    return buildKeyName(keynum, name);
+  }
+
+  /**
+   * @return The key sequences and choosers of a table, or null if it is not one of the models and relations.
+   */
+  public CountClass getCounter(String name) {
+    return counters.get(name);
+  }
+
+  /**
+   * @return The table with the id, as returned by {@link #getTableId(String)}.
+   */
+  public CountClass getCounter(int id) {
+    return tables[id];
+  }
+
+  /**
+   * @return The id of a table, or -1 if it is not one of the models and relations.
+   */
+  public int getTableId(String name) {
+    CountClass counter = counters.get(name);
+    return counter == null ? -1 : counter.id;
   }
 
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+public class TestArrivalProcess {
+
+  @Test
+  public void constantArrivalsKeepTheirIntervalWhenTakenLate() throws Exception {
+    ArrivalProcess arrivals = new ArrivalProcess(false, 1000);
+    long before = System.nanoTime();
+    long first = arrivals.nextArrivalNanos();
+    assertTrue(first >= before);
+    Thread.sleep(20);
+    // The arrivals that were due while nobody took them are not skipped.
+    for (int i = 1; i <= 10; i++) {
+      assertEquals(arrivals.nextArrivalNanos(), first + i * 1000000L);
+    }
+  }
+
+  @Test
+  public void poissonArrivalsHaveTheTargetRate() {
+    ArrivalProcess arrivals = new ArrivalProcess(true, 1000000);
+    long first = arrivals.nextArrivalNanos();
+    long previous = first;
+    int shortIntervals = 0;
+    for (int i = 0; i < 100000; i++) {
+      long arrival = arrivals.nextArrivalNanos();
+      if (arrival - previous < 1000) {
+        shortIntervals++;
+      }
+      previous = arrival;
+    }
+    // A mean interval of 1us, about 63% of the intervals shorter than the mean.
+    assertEquals((previous - first) / 100000.0, 1000, 20);
+    assertEquals(shortIntervals / 100000.0, 1 - Math.exp(-1), 0.01);
+  }
+
+  @Test
+  public void closedLoopHasNoArrivals() {
+    assertNull(ArrivalProcess.create(new Properties(), 100));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void openLoopRequiresTarget() {
+    Properties p = new Properties();
+    p.setProperty(ArrivalProcess.ARRIVAL_PROCESS_PROPERTY, "poisson");
+    ArrivalProcess.create(p, 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unknownArrivalProcessIsRejected() {
+    Properties p = new Properties();
+    p.setProperty(ArrivalProcess.ARRIVAL_PROCESS_PROPERTY, "bursty");
+    ArrivalProcess.create(p, 100);
+  }
+}
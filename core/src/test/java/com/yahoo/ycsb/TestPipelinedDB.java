@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link PipelinedDB}.
+ */
+public class TestPipelinedDB {
+
+  @Test
+  public void testInflightLimit() throws Exception {
+    Measurements.setProperties(new Properties());
+    PendingDB pending = new PendingDB();
+    DBWrapper wrapper = new DBWrapper(pending, new Tracer.Builder("test").conf(HTraceConfiguration.EMPTY).build());
+    assertTrue(wrapper.isAsync());
+    final PipelinedDB pipeline = new PipelinedDB(wrapper, 2);
+
+    assertEquals(pipeline.read("table", "key1", null, null), Status.BATCHED_OK);
+    assertEquals(pipeline.update("table", "key2", null), Status.BATCHED_OK);
+    assertEquals(pending.submitted.size(), 2);
+
+    // The third operation has to wait until one of the outstanding ones completes.
+    Thread third = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pipeline.insert("table", "key3", null);
+      }
+    });
+    third.start();
+    third.join(200);
+    assertTrue(third.isAlive());
+    assertEquals(pending.submitted.size(), 2);
+
+    pending.submitted.poll().complete(Status.OK);
+    third.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(third.isAlive());
+    assertEquals(pending.submitted.size(), 2);
+
+    Thread drain = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pipeline.drain();
+      }
+    });
+    drain.start();
+    drain.join(200);
+    assertTrue(drain.isAlive());
+
+    pending.submitted.poll().complete(Status.ERROR);
+    pending.submitted.poll().completeExceptionally(new IllegalStateException());
+    drain.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(drain.isAlive());
+  }
+
+  /**
+   * An {@link AsyncDB} whose operations stay outstanding until the test completes them.
+   */
+  private static final class PendingDB extends AsyncDB {
+    private final ConcurrentLinkedQueue<CompletableFuture<Status>> submitted = new ConcurrentLinkedQueue<>();
+
+    private CompletableFuture<Status> submit() {
+      CompletableFuture<Status> future = new CompletableFuture<>();
+      submitted.add(future);
+      return future;
+    }
+
+    @Override
+    public CompletableFuture<Status> readAsync(String table, String key, Set<String> fields,
+                                               Map<String, ByteIterator> result) {
+      return submit();
+    }
+
+    @Override
+    public CompletableFuture<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+      return submit();
+    }
+
+    @Override
+    public CompletableFuture<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+      return submit();
+    }
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      return readAsync(table, key, fields, result).join();
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      return updateAsync(table, key, values).join();
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      return insertAsync(table, key, values).join();
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return Status.NOT_IMPLEMENTED;
+    }
+  }
+}
@@ -22,6 +22,8 @@ import java.util.concurrent.BlockingQueue;
 
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.assertEquals;
+
 /**
  * Tests for the AcknowledgedCounterGenerator class.
  */
@@ -58,4 +60,67 @@ public class AcknowledgedCounterGeneratorTest {
     }
 
   }
+
+  /**
+   * Test that the limit waits for the first value and then moves over all values that were acknowledged
+   * before it, even if they are several segments ahead.
+   */
+  @Test
+  public void testWindowGrows() {
+    final long start = 100;
+    final long end = start + AcknowledgedCounterGenerator.WINDOW_SIZE * 3 + 17;
+    AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(start);
+    for (long value = start; value <= end; value++) {
+      assertEquals(generator.nextValue().longValue(), value);
+    }
+    for (long value = end; value > start; value--) {
+      generator.acknowledge(value);
+    }
+    assertEquals(generator.lastValue().longValue(), start - 1);
+
+    generator.acknowledge(start);
+    assertEquals(generator.lastValue().longValue(), end);
+  }
+
+  /**
+   * Test that the limit reaches the last value if threads acknowledge concurrently and out of order.
+   */
+  @Test
+  public void testConcurrentAcknowledgements() throws InterruptedException {
+    final int threads = 8;
+    final int perThread = 50000;
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(0);
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Random rand = new Random();
+          long[] pending = new long[16];
+          for (int i = 0; i < perThread; i++) {
+            int index = i % pending.length;
+            if (i >= pending.length) {
+              generator.acknowledge(pending[index]);
+            }
+            pending[index] = generator.nextValue();
+            if (i >= pending.length && rand.nextInt(4) == 0) {
+              // Swap with another pending value to acknowledge out of order.
+              int other = rand.nextInt(pending.length);
+              long value = pending[index];
+              pending[index] = pending[other];
+              pending[other] = value;
+            }
+          }
+          for (int i = 0; i < pending.length; i++) {
+            generator.acknowledge(pending[i]);
+          }
+        }
+      });
+      workers[t].start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    assertEquals(generator.lastValue().longValue(), (long) threads * perThread - 1);
+  }
 }
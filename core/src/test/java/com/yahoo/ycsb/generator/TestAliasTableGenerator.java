@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestAliasTableGenerator {
+  @Test
+  public void testDistribution() {
+    AliasTableGenerator generator = new AliasTableGenerator(new double[]{0.1, 0, 0.6, 0.3});
+    int[] counts = new int[4];
+    int samples = 200000;
+    for (int i = 0; i < samples; i++) {
+      counts[generator.nextInt()]++;
+    }
+    assertEquals(counts[1], 0);
+    assertEquals(counts[0] / (double) samples, 0.1, 0.01);
+    assertEquals(counts[2] / (double) samples, 0.6, 0.01);
+    assertEquals(counts[3] / (double) samples, 0.3, 0.01);
+    assertEquals(generator.mean(), 0.6 * 2 + 0.3 * 3, 1e-9);
+  }
+
+  @Test
+  public void testUnnormalizedWeights() {
+    AliasTableGenerator generator = new AliasTableGenerator(new double[]{5});
+    for (int i = 0; i < 100; i++) {
+      assertEquals(generator.nextInt(), 0);
+    }
+    int value = generator.nextValue().intValue();
+    assertTrue(value == 0 && generator.lastValue().intValue() == 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testAllZeroWeights() {
+    new AliasTableGenerator(new double[]{0, 0});
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.Utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestScrambledZipfianGenerator {
+  private static final int DRAWS = 200000;
+
+  private static long[] drawBounded(ScrambledZipfianGenerator generator, int upper) {
+    long[] hits = new long[upper + 1];
+    for (int i = 0; i < DRAWS; i++) {
+      hits[(int) generator.nextLong(upper)]++;
+    }
+    return hits;
+  }
+
+  // The share of the draws that hit the k most popular items.
+  private static double topShare(long[] hits, int k) {
+    long[] sorted = hits.clone();
+    Arrays.sort(sorted);
+    long top = 0;
+    for (int i = 0; i < k; i++) {
+      top += sorted[sorted.length - 1 - i];
+    }
+    return (double) top / DRAWS;
+  }
+
+  private static Set<Integer> mostPopular(long[] hits, int k) {
+    Set<Integer> items = new HashSet<>();
+    long[] sorted = hits.clone();
+    Arrays.sort(sorted);
+    long threshold = sorted[sorted.length - k];
+    for (int i = 0; i < hits.length; i++) {
+      if (hits[i] >= threshold) {
+        items.add(i);
+      }
+    }
+    return items;
+  }
+
+  @Test
+  public void testBoundedDrawsAreZipfianOverTheBound() {
+    ScrambledZipfianGenerator generator = new ScrambledZipfianGenerator(0, 9999);
+    long[] bounded = drawBounded(generator, 999);
+
+    // Rejecting the draws above the bound, as key choosers used to, keeps the skew of the whole keyspace.
+    long[] rejected = new long[1000];
+    for (int i = 0; i < DRAWS; i++) {
+      long value;
+      do {
+        value = generator.nextValue();
+      } while (value > 999);
+      rejected[(int) value]++;
+    }
+
+    double zeta10 = 0;
+    double zeta1000 = 0;
+    for (int i = 1; i <= 1000; i++) {
+      zeta1000 += Math.pow(i, -ZipfianGenerator.ZIPFIAN_CONSTANT);
+      if (i <= 10) {
+        zeta10 += Math.pow(i, -ZipfianGenerator.ZIPFIAN_CONSTANT);
+      }
+    }
+    assertEquals(topShare(bounded, 10), zeta10 / zeta1000, 0.05);
+    assertTrue(topShare(bounded, 10) > 2 * topShare(rejected, 10));
+  }
+
+  @Test
+  public void testPopularItemsStayPopularWhenTheBoundGrows() {
+    ScrambledZipfianGenerator generator = new ScrambledZipfianGenerator(0, 9999);
+    Set<Integer> before = mostPopular(drawBounded(generator, 999), 10);
+    Set<Integer> after = mostPopular(drawBounded(generator.copyForThread(), 1099), 10);
+    before.retainAll(after);
+    assertTrue(before.size() >= 8, before.toString());
+  }
+
+  @Test
+  public void testJumpHashMovesKeysOnlyToNewBuckets() {
+    for (long key = 0; key < 1000; key++) {
+      long hash = Utils.fnvhash64(key);
+      long bucket = ScrambledZipfianGenerator.jumpHash(hash, 100);
+      assertTrue(bucket >= 0 && bucket < 100);
+      long grown = ScrambledZipfianGenerator.jumpHash(hash, 101);
+      assertTrue(grown == bucket || grown == 100, key + ": " + bucket + " to " + grown);
+    }
+  }
+}
@@ -36,4 +36,33 @@ public class TestZipfianGenerator {
         }
 
     }
+
+    @Test
+    public void testCopyForThread() throws InterruptedException {
+        final ZipfianGenerator zipfian = new ZipfianGenerator(0, 999);
+        final long[] largest = new long[4];
+        Thread[] threads = new Thread[largest.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ZipfianGenerator copy = zipfian.copyForThread();
+                    for (int i = 0; i < 10000; i++) {
+                        // A growing number of items, as used by the skewed latest distribution.
+                        long value = copy.nextLong(1000 + i / 10);
+                        largest[index] = Math.max(largest[index], value);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long value : largest) {
+            assertFalse(value >= 2000);
+        }
+        assertFalse(zipfian.copyForThread() == zipfian);
+    }
 }
@@ -0,0 +1,319 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestMeasurements {
+
+  private static String export(Measurements mm) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    mm.exportMeasurements(exporter);
+    exporter.close();
+    return out.toString("UTF-8");
+  }
+
+  @Test
+  public void testHandleSharesMeasurementWithName() throws IOException {
+    Properties props = new Properties();
+    props.put(Measurements.MEASUREMENT_INTERVAL, "both");
+    Measurements mm = new Measurements(props);
+    Measurements.Handle handle = mm.getHandle("READ-userById");
+    handle.measure(100);
+    handle.measureIntended(150);
+    handle.reportStatus(Status.OK);
+    mm.measure("READ-userById", 200);
+
+    String exported = export(mm);
+    assertTrue(exported.contains("[READ-userById], Operations, 2"), exported);
+    assertTrue(exported.contains("[Intended-READ-userById], Operations, 1"), exported);
+    assertTrue(exported.contains("[READ-userById], Return=OK, 1"), exported);
+  }
+
+  @Test
+  public void testUnusedHandleIsNotExported() throws IOException {
+    Measurements mm = new Measurements(new Properties());
+    mm.getHandle("READ-FAILED");
+    mm.getHandle("READ").measure(10);
+    String exported = export(mm);
+    assertTrue(exported.contains("[READ], Operations, 1"), exported);
+    assertFalse(exported.contains("READ-FAILED"), exported);
+  }
+
+  @Test
+  public void testThreadsAreMergedOnRead() throws Exception {
+    final Measurements mm = new Measurements(new Properties());
+    final Status throttled = new Status("THROTTLED", "The server throttled the request.");
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Measurements.Handle handle = mm.getHandle("READ");
+          for (int i = 1; i <= 1000; i++) {
+            handle.measure(i);
+            handle.reportStatus(i % 4 == 0 ? throttled : Status.OK);
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(mm.getSummary().contains("[READ: Count=4000, Max=1000, Min=1,"), mm.getSummary());
+
+    mm.measure("READ", 2000);
+    mm.reportStatus("READ", new Status("THROTTLED", "The server throttled the request."));
+    String exported = export(mm);
+    assertTrue(exported.contains("[READ], Operations, 4001"), exported);
+    assertTrue(exported.contains("[READ], MaxLatency(us), 2000"), exported);
+    assertTrue(exported.contains("[READ], Return=OK, 3000"), exported);
+    assertTrue(exported.contains("[READ], Return=THROTTLED, 1001"), exported);
+  }
+
+  @Test
+  public void testStripesDoNotGrowWithThreads() throws Exception {
+    final Stripes<Object> stripes = new Stripes<Object>() {
+      @Override
+      protected Object newStripe() {
+        return new Object();
+      }
+    };
+    for (int t = 0; t < 200; t++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          stripes.get();
+        }
+      });
+      thread.start();
+      thread.join();
+    }
+    int processors = Runtime.getRuntime().availableProcessors();
+    assertTrue(stripes.all().size() < 2 * processors, String.valueOf(stripes.all().size()));
+    assertTrue(stripes.all().contains(stripes.get()));
+  }
+
+  @Test
+  public void testEqualStatusesShareId() {
+    Status status = new Status("THROTTLED", "The server throttled the request.");
+    assertEquals(status.getId(), new Status("THROTTLED", "The server throttled the request.").getId());
+    assertEquals(Status.byId(status.getId()), status);
+    assertTrue(Status.OK.getId() != Status.ERROR.getId());
+  }
+
+  private static void measureConcurrently(final Measurements mm) throws InterruptedException {
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Measurements.Handle handle = mm.getHandle("READ");
+          for (int i = 1; i <= 1000; i++) {
+            handle.measure(i);
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  @Test
+  public void testHistogramCountsConcurrentMeasurements() throws Exception {
+    Properties props = new Properties();
+    props.put(Measurements.MEASUREMENT_TYPE_PROPERTY, "histogram");
+    Measurements mm = new Measurements(props);
+    measureConcurrently(mm);
+    assertEquals(mm.getSummary().trim(), "[READ AverageLatency(us)=500.5]");
+    assertEquals(mm.getSummary().trim(), "");
+
+    String exported = export(mm);
+    assertTrue(exported.contains("[READ], Operations, 4000"), exported);
+    assertTrue(exported.contains("[READ], AverageLatency(us), 500.5"), exported);
+    assertTrue(exported.contains("[READ], MinLatency(us), 1\n"), exported);
+    assertTrue(exported.contains("[READ], MaxLatency(us), 1000"), exported);
+    assertTrue(exported.contains("[READ], 95thPercentileLatency(us), 0"), exported);
+    assertTrue(exported.contains("[READ], 99thPercentileLatency(us), 0"), exported);
+  }
+
+  @Test
+  public void testTimeSeriesCountsConcurrentMeasurements() throws Exception {
+    Properties props = new Properties();
+    props.put(Measurements.MEASUREMENT_TYPE_PROPERTY, "timeseries");
+    props.put(OneMeasurementTimeSeries.GRANULARITY, "60000");
+    Measurements mm = new Measurements(props);
+    measureConcurrently(mm);
+
+    String exported = export(mm);
+    assertTrue(exported.contains("[READ], Operations, 4000"), exported);
+    assertTrue(exported.contains("[READ], AverageLatency(us), 500.5"), exported);
+    assertTrue(exported.contains("[READ], MinLatency(us), 1\n"), exported);
+    assertTrue(exported.contains("[READ], MaxLatency(us), 1000"), exported);
+    assertTrue(exported.contains("[READ], 0, 500.5"), exported);
+  }
+
+  @Test
+  public void testTimeSeriesSummaryCoversWindow() throws Exception {
+    Properties props = new Properties();
+    props.put(Measurements.MEASUREMENT_TYPE_PROPERTY, "timeseries");
+    props.put(OneMeasurementTimeSeries.GRANULARITY, "1");
+    Measurements mm = new Measurements(props);
+    mm.measure("READ", 100);
+    assertEquals(mm.getSummary().trim(), "[READ AverageLatency(us)=100]");
+    for (int latency = 200; latency <= 600; latency += 200) {
+      Thread.sleep(5);
+      mm.measure("READ", latency);
+    }
+    assertEquals(mm.getSummary().trim(), "[READ AverageLatency(us)=400]");
+    Thread.sleep(5);
+    mm.measure("READ", 1000);
+    assertEquals(mm.getSummary().trim(), "[READ AverageLatency(us)=1000]");
+    assertEquals(mm.getSummary().trim(), "");
+
+    String exported = export(mm);
+    assertTrue(exported.contains("[READ], Operations, 5"), exported);
+    assertTrue(exported.contains("[READ], AverageLatency(us), 460.0"), exported);
+  }
+
+  @Test
+  public void testRawMergesThreadsInTimestampOrder() throws Exception {
+    File output = File.createTempFile("raw", ".csv");
+    output.deleteOnExit();
+    Properties props = new Properties();
+    props.put(Measurements.MEASUREMENT_TYPE_PROPERTY, "raw");
+    props.put(OneMeasurementRaw.OUTPUT_FILE_PATH, output.getPath());
+    Measurements mm = new Measurements(props);
+    measureConcurrently(mm);
+    assertTrue(mm.getSummary().contains("READ count: 4000, average latency(us): 500.50"), mm.getSummary());
+    assertEquals(mm.getSummary().trim(), "");
+
+    String exported = export(mm);
+    assertTrue(exported.contains("[READ], Total Operations, 4000"), exported);
+    assertTrue(exported.contains("[READ], Average, 500.5"), exported);
+    assertTrue(exported.contains("[READ], Min, 1\n"), exported);
+    assertTrue(exported.contains("[READ], Max, 1000\n"), exported);
+    assertTrue(exported.contains("[READ], p50, 501\n"), exported);
+    assertTrue(exported.contains("[READ], p99, 991\n"), exported);
+
+    List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+    assertEquals(lines.size(), 4001);
+    assertEquals(lines.get(0), "READ latency raw data: op, timestamp(ms), latency(us)");
+    long last = 0;
+    long sum = 0;
+    for (String line : lines.subList(1, lines.size())) {
+      String[] fields = line.split(",");
+      assertEquals(fields[0], "READ");
+      long timestamp = Long.parseLong(fields[1]);
+      assertTrue(timestamp >= last, line);
+      last = timestamp;
+      sum += Integer.parseInt(fields[2]);
+    }
+    assertEquals(sum, 4 * 500500);
+  }
+
+  @Test
+  public void testOperationLogRoundTrip() throws Exception {
+    File log = File.createTempFile("operations", ".log");
+    log.deleteOnExit();
+    Properties props = new Properties();
+    props.put(Measurements.OPERATION_LOG_PROPERTY, log.getPath());
+    final Measurements mm = new Measurements(props);
+    final long start = System.nanoTime();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Measurements.Handle read = mm.getHandle("READ");
+          Measurements.Handle update = mm.getHandle("UPDATE");
+          // More operations than fit into the first region of a thread.
+          for (int i = 0; i < OperationLog.REGION_RECORDS + 1000; i++) {
+            long begin = start + i * 1000000L;
+            if (i % 2 == 0) {
+              read.log(Status.OK, begin, begin + (i % 1000 + 1) * 1000L);
+            } else {
+              update.log(i % 10 == 1 ? Status.ERROR : Status.OK, begin, begin + 5000);
+            }
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    mm.getHandle("DELETE").log(null, start, start + 1000);
+    export(mm);
+
+    final int operations = 4 * (OperationLog.REGION_RECORDS + 1000);
+    try (final OperationLogReader reader = new OperationLogReader(log.getPath())) {
+      final long[] counts = new long[3];
+      reader.read(new OperationLogReader.RecordHandler() {
+        @Override
+        public void record(long startNanos, int latencyUs, int statusId, int operationId) {
+          if (reader.getOperation(operationId).equals("READ")) {
+            counts[0]++;
+            counts[1] += latencyUs;
+          } else if (reader.getStatus(statusId).equals("ERROR")) {
+            counts[2]++;
+          }
+        }
+      });
+      assertEquals(counts[0], operations / 2);
+      assertEquals(counts[2], 4 * 6654);
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+      reader.export(exporter, 1000, Arrays.asList(50.0, 99.0));
+      exporter.close();
+      String exported = out.toString("UTF-8");
+      assertTrue(exported.contains("[READ], Operations, " + operations / 2 + "\n"), exported);
+      assertTrue(exported.contains("[UPDATE], Return=ERROR, " + 4 * 6654 + "\n"), exported);
+      assertTrue(exported.contains("[UPDATE], 0 Throughput(ops/sec), 2000.0\n"), exported);
+      assertTrue(exported.contains("[OVERALL], 1000 Throughput(ops/sec), 4000.0\n"), exported);
+      assertTrue(exported.contains("[READ], 1000 MaxLatency(us), 999"), exported);
+      assertTrue(exported.contains("[DELETE], Return=NONE, 1\n"), exported);
+    }
+  }
+}
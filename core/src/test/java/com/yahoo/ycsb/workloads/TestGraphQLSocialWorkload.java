@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.WorkloadException;
+
+public class TestGraphQLSocialWorkload {
+
+  /**
+   * Records the tables in insert order, and the queries and keys of reads.
+   */
+  private static class RecordingDB extends DB {
+    private final List<String> inserts = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> insertKeys = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> reads = new ArrayList<>();
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      inserts.add(table);
+      insertKeys.add(key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      reads.add(table + " " + key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return Status.NOT_IMPLEMENTED;
+    }
+  }
+
+  private static Properties loadAllProperties() {
+    Properties p = new Properties();
+    p.setProperty(GraphQLSocialWorkload.TABLENAME_PROPERTY, GraphQLSocialWorkload.ALL_TABLES);
+    p.setProperty("models", "[user,post,comment,like,group]");
+    p.setProperty("relations", "[friendship]");
+    p.setProperty("count.user", "50");
+    p.setProperty("count.group", "10");
+    p.setProperty("count.post", "40");
+    p.setProperty("count.comment", "30");
+    p.setProperty("count.like", "20");
+    p.setProperty("count.friendship", "25");
+    return p;
+  }
+
+  @Test
+  public void loadAllTablesInPhases() throws Exception {
+    Properties p = loadAllProperties();
+    final GraphQLSocialWorkload workload = new GraphQLSocialWorkload();
+    workload.init(p);
+    final RecordingDB db = new RecordingDB();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      final Object state = workload.initThread(p, i, 4);
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          while (workload.doInsert(db, state)) {
+            // load until all phases are done
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join(10000);
+    }
+
+    List<String> inserts = db.inserts;
+    assertEquals(inserts.size(), 50 + 10 + 40 + 30 + 20 + 25);
+    assertEquals(Collections.frequency(inserts, "user"), 50);
+    assertEquals(Collections.frequency(inserts, "friendship"), 25);
+    int lastFirstPhase = Math.max(inserts.lastIndexOf("user"), inserts.lastIndexOf("group"));
+    int lastPost = inserts.lastIndexOf("post");
+    assertTrue(lastFirstPhase < inserts.indexOf("post"));
+    assertTrue(lastPost < inserts.indexOf("comment"));
+    assertTrue(lastPost < inserts.indexOf("like"));
+    assertTrue(lastPost < inserts.indexOf("friendship"));
+  }
+
+  @Test
+  public void transactionsDispatchConfiguredQueries() throws Exception {
+    Properties p = new Properties();
+    p.setProperty("models", "[user,group]");
+    p.setProperty("insertorder", "ordered");
+    p.setProperty("readproportion", "1");
+    p.setProperty("updateproportion", "0");
+    p.setProperty("read.queries", "[userById_user,groupById_group,unused_user]");
+    p.setProperty("read.userById.proportion", "0.5");
+    p.setProperty("read.groupById.proportion", "0.5");
+    GraphQLSocialWorkload workload = new GraphQLSocialWorkload();
+    workload.init(p);
+    assertEquals(workload.operations.length, 2);
+    assertEquals(workload.operations[1].getTable().name, "group");
+
+    RecordingDB db = new RecordingDB();
+    for (int i = 0; i < 100; i++) {
+      assertTrue(workload.doTransaction(db, null));
+    }
+    for (String read : db.reads) {
+      assertTrue(read.matches("userById user\\d+|groupById group\\d+"), read);
+    }
+  }
+
+  @Test
+  public void transactionInsertsAcknowledgeTheirKeys() throws Exception {
+    Properties p = new Properties();
+    p.setProperty("models", "[user]");
+    p.setProperty("count.user", "10");
+    p.setProperty("insertorder", "ordered");
+    p.setProperty("requestdistribution", "latest");
+    p.setProperty("readproportion", "0");
+    p.setProperty("insertproportion", "1");
+    p.setProperty("insert.queries", "[createSingleUser_user]");
+    p.setProperty("insert.createSingleUser.proportion", "1");
+    GraphQLSocialWorkload workload = new GraphQLSocialWorkload();
+    workload.init(p);
+
+    RecordingDB db = new RecordingDB();
+    for (int i = 0; i < 5; i++) {
+      assertTrue(workload.doTransaction(db, null));
+    }
+    assertEquals(db.insertKeys, Arrays.asList("user10", "user11", "user12", "user13", "user14"));
+    CountClass user = workload.multiTable.getCounter("user");
+    assertEquals(user.transactioninsertkeysequence.lastValue().longValue(), 14);
+    // The latest distribution favors the new records: about 60% of the keys, where a uniform one chooses 33%.
+    int recent = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (Integer.parseInt(workload.multiTable.nextKeyname(user).substring(4)) >= 10) {
+        recent++;
+      }
+    }
+    assertTrue(recent > 500, String.valueOf(recent));
+  }
+
+  @Test(expectedExceptions = WorkloadException.class)
+  public void transactionsRejectUnknownTable() throws Exception {
+    Properties p = new Properties();
+    p.setProperty("models", "[user]");
+    p.setProperty("read.queries", "[postById_post]");
+    p.setProperty("read.postById.proportion", "1");
+    new GraphQLSocialWorkload().init(p);
+  }
+
+  @Test(expectedExceptions = WorkloadException.class)
+  public void loadAllTablesRejectsRecordCount() throws Exception {
+    Properties p = loadAllProperties();
+    p.setProperty("recordcount", "100");
+    new GraphQLSocialWorkload().init(p);
+  }
+
+  @Test(expectedExceptions = WorkloadException.class)
+  public void loadAllTablesRejectsUnknownTable() throws Exception {
+    Properties p = loadAllProperties();
+    p.setProperty(GraphQLSocialWorkload.LOAD_PHASES_PROPERTY, "user;posts");
+    new GraphQLSocialWorkload().init(p);
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Properties;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.Utils;
+
+public class TestKeyBuffer {
+
+  // The key format of MultiTableSupport.buildKeyName before keys were encoded into a KeyBuffer.
+  private static String legacyKey(long keynum, String table, int zeropadding) {
+    String value = Long.toString(keynum);
+    int fill = zeropadding - value.length();
+    String prekey = table;
+    for (int i = 0; i < fill; i++) {
+      prekey += '0';
+    }
+    return prekey + value;
+  }
+
+  @Test
+  public void testMatchesLegacyFormat() {
+    KeyBuffer buffer = new KeyBuffer();
+    Random random = new Random(42);
+    long[] values = {0, 1, 9, 10, 99, 100, 123456789, Long.MAX_VALUE, -5, Utils.hash(17)};
+    for (int zeropadding : new int[]{1, 5, 12, 25}) {
+      for (long value : values) {
+        assertEquals(buffer.encode("user", value, zeropadding).toString(), legacyKey(value, "user", zeropadding));
+      }
+      for (int i = 0; i < 1000; i++) {
+        long value = random.nextLong() >>> random.nextInt(64);
+        assertEquals(buffer.encode("comment", value, zeropadding).toString(),
+            legacyKey(value, "comment", zeropadding));
+      }
+    }
+  }
+
+  @Test
+  public void testCharSequenceView() {
+    KeyBuffer buffer = new KeyBuffer().encode("post", 42, 4);
+    assertEquals(buffer.length(), 8);
+    assertEquals(buffer.charAt(4), '0');
+    assertEquals(buffer.subSequence(4, 8).toString(), "0042");
+    assertEquals(new String(buffer.array(), 0, buffer.length()), "post0042");
+  }
+
+  @Test
+  public void testMultiTableSupportKeys() {
+    Properties p = new Properties();
+    p.setProperty("models", "[user]");
+    p.setProperty(MultiTableSupport.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(MultiTableSupport.ZERO_PADDING_PROPERTY, "3");
+    MultiTableSupport multiTable = new MultiTableSupport(p);
+    assertEquals(multiTable.buildKeyName(7, "user"), "user007");
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+public class TestMultiTableSupport {
+
+  @Test
+  public void testTableIds() {
+    Properties p = new Properties();
+    p.setProperty("models", "[user,post]");
+    p.setProperty("relations", "[friendship,user]");
+    p.setProperty("count.post", "10");
+    MultiTableSupport multiTable = MultiTableSupport.getInstance(p);
+    assertSame(MultiTableSupport.getInstance(p), multiTable);
+    assertEquals(multiTable.getTableId("user"), 0);
+    assertEquals(multiTable.getTableId("friendship"), 2);
+    assertEquals(multiTable.getTableId("comment"), -1);
+    assertSame(multiTable.getCounter(multiTable.getTableId("post")), multiTable.getCounter("post"));
+    for (int i = 0; i < 100; i++) {
+      assertTrue(multiTable.nextKey(1).toString().startsWith("post"));
+    }
+  }
+
+  @Test
+  public void testKeysAreChosenFromAcknowledgedRecords() {
+    for (String distribution : new String[]{"zipfian", "exponential", "uniform", "latest"}) {
+      Properties p = new Properties();
+      p.setProperty("models", "[user]");
+      p.setProperty("count.user", "100");
+      p.setProperty("operationcount", "100000");
+      p.setProperty(CountClass.INSERT_PROPORTION_PROPERTY, "0.5");
+      p.setProperty(CountClass.REQUEST_DISTRIBUTION_PROPERTY, distribution);
+      p.setProperty(MultiTableSupport.INSERT_ORDER_PROPERTY, "ordered");
+      MultiTableSupport multiTable = new MultiTableSupport(p);
+      CountClass user = multiTable.getCounter("user");
+      int[] hits = new int[100];
+      for (int i = 0; i < 10000; i++) {
+        int keynum = Integer.parseInt(multiTable.nextKey(user).toString().substring("user".length()));
+        assertTrue(keynum >= 0 && keynum < 100, distribution + " chose " + keynum);
+        hits[keynum]++;
+      }
+      assertEquals(user.rejectedkeys.sum(), 0, distribution);
+      if (distribution.equals("exponential")) {
+        // The most recent records are the most popular ones.
+        assertTrue(hits[99] > hits[0], distribution);
+      }
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.ClientThread;
+import com.yahoo.ycsb.webservice.graphql.DeadlineScheduler.Deadline;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * A non-blocking HTTP client shared by all client threads that keep several operations in flight.
+ * A handful of I/O reactor threads drive every connection; responses are buffered and handed to
+ * the caller through a {@link CompletableFuture}. Like {@link PooledHttpTransport}, every binding
+ * instance acquires the transport in init() and releases it in cleanup().
+ *
+ * With {@value #HTTP_VERSION_PROPERTY}=2 the requests are multiplexed over a few HTTP/2 connections instead,
+ * see {@link Http2Multiplexer}. The bindings then send every request through this transport, as a single
+ * connection serves the operations of many client threads.
+ */
+public final class AsyncHttpTransport {
+  /**
+   * Number of I/O reactor threads. Defaults to the number of available processors.
+   */
+  public static final String IO_THREADS_PROPERTY = "http.async.iothreads";
+
+  /**
+   * The HTTP version, 1.1 or 2.
+   */
+  public static final String HTTP_VERSION_PROPERTY = "http.version";
+  public static final String HTTP_VERSION_PROPERTY_DEFAULT = "1.1";
+
+  /**
+   * Number of HTTP/2 connections the requests are spread over.
+   */
+  public static final String HTTP2_CONNECTIONS_PROPERTY = "http2.connections";
+  public static final String HTTP2_CONNECTIONS_PROPERTY_DEFAULT = "1";
+
+  /**
+   * Maximum number of concurrent streams, i.e. requests in flight, per HTTP/2 connection.
+   */
+  public static final String HTTP2_MAX_STREAMS_PROPERTY = "http2.maxstreams";
+  public static final String HTTP2_MAX_STREAMS_PROPERTY_DEFAULT = "100";
+
+  private static AsyncHttpTransport instance = null;
+  private static int references = 0;
+
+  private final CloseableHttpAsyncClient client;
+  private final Http2Multiplexer multiplexer;
+
+  private AsyncHttpTransport(Properties props, RequestConfig requestConfig) throws IOReactorException {
+    if (isHttp2(props)) {
+      int connections = Integer.parseInt(props.getProperty(HTTP2_CONNECTIONS_PROPERTY,
+          HTTP2_CONNECTIONS_PROPERTY_DEFAULT));
+      int maxStreams = Integer.parseInt(props.getProperty(HTTP2_MAX_STREAMS_PROPERTY,
+          HTTP2_MAX_STREAMS_PROPERTY_DEFAULT));
+      multiplexer = new Http2Multiplexer(connections, maxStreams, requestConfig);
+      client = null;
+      return;
+    }
+    multiplexer = null;
+    int threads = Integer.parseInt(props.getProperty(Client.THREAD_COUNT_PROPERTY, "1"));
+    int inflight = Integer.parseInt(props.getProperty(ClientThread.ASYNC_INFLIGHT_PROPERTY,
+        ClientThread.ASYNC_INFLIGHT_PROPERTY_DEFAULT));
+    // Every outstanding operation needs its own connection unless HTTP/1.1 pipelining is used.
+    int maxPerRoute = Integer.parseInt(props.getProperty(PooledHttpTransport.MAX_PER_ROUTE_PROPERTY,
+        String.valueOf(threads * inflight)));
+    int maxTotal = Integer.parseInt(props.getProperty(PooledHttpTransport.MAX_TOTAL_PROPERTY,
+        String.valueOf(maxPerRoute)));
+    int ioThreads = Integer.parseInt(props.getProperty(IO_THREADS_PROPERTY,
+        String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+    IOReactorConfig reactorConfig = IOReactorConfig.custom()
+        .setIoThreadCount(ioThreads)
+        .setConnectTimeout(requestConfig.getConnectTimeout())
+        .setSoTimeout(requestConfig.getSocketTimeout())
+        .setTcpNoDelay(true)
+        .build();
+    PoolingNHttpClientConnectionManager pool =
+        new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig));
+    pool.setDefaultMaxPerRoute(maxPerRoute);
+    pool.setMaxTotal(maxTotal);
+
+    client = HttpAsyncClients.custom()
+        .setDefaultRequestConfig(requestConfig)
+        .setConnectionManager(pool)
+        .build();
+    client.start();
+  }
+
+  /**
+   * @param props The properties of the run.
+   * @return true if the requests are sent over HTTP/2.
+   * @throws IllegalArgumentException If the HTTP version is neither 1.1 nor 2.
+   */
+  public static boolean isHttp2(Properties props) {
+    String version = props.getProperty(HTTP_VERSION_PROPERTY, HTTP_VERSION_PROPERTY_DEFAULT).trim();
+    switch (version) {
+    case "1.1":
+      return false;
+    case "2":
+      return true;
+    default:
+      throw new IllegalArgumentException("Unknown " + HTTP_VERSION_PROPERTY + " " + version + ", use 1.1 or 2.");
+    }
+  }
+
+  /**
+   * Returns the shared transport, creating and starting it on first use.
+   *
+   * @param props The properties of the run.
+   * @param requestConfig The default request configuration (timeouts) of the shared client.
+   */
+  public static synchronized AsyncHttpTransport acquire(Properties props, RequestConfig requestConfig)
+      throws IOException {
+    if (instance == null) {
+      instance = new AsyncHttpTransport(props, requestConfig);
+    }
+    references++;
+    return instance;
+  }
+
+  /**
+   * Gives up one reference to the shared transport. Shuts the reactor down when no references remain.
+   */
+  public static synchronized void release(AsyncHttpTransport transport) throws IOException {
+    if (transport == null || transport != instance) {
+      return;
+    }
+    if (--references == 0) {
+      instance = null;
+      if (transport.multiplexer != null) {
+        transport.multiplexer.close();
+      } else {
+        transport.client.close();
+      }
+    }
+  }
+
+  /**
+   * Sends a request without blocking the calling thread.
+   *
+   * @param request The request to send.
+   * @param timeoutMs The execution time limit in milliseconds, after which the exchange is cancelled.
+   * @return A future completed with the buffered response, or exceptionally with the failure.
+   *         An exchange that exceeded its time limit fails with a {@link TimeoutException}.
+   */
+  public CompletableFuture<HttpResponse> execute(HttpUriRequest request, long timeoutMs) {
+    if (multiplexer != null) {
+      return multiplexer.execute(request, timeoutMs);
+    }
+    final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+    Future<HttpResponse> exchange = client.execute(request, new FutureCallback<HttpResponse>() {
+      @Override
+      public void completed(HttpResponse response) {
+        result.complete(response);
+      }
+
+      @Override
+      public void failed(Exception e) {
+        result.completeExceptionally(e);
+      }
+
+      @Override
+      public void cancelled() {
+        result.completeExceptionally(new TimeoutException("HTTP Request exceeded execution time limit."));
+      }
+    });
+    final Deadline deadline = DeadlineScheduler.start(exchange, timeoutMs);
+    result.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+      @Override
+      public void accept(HttpResponse response, Throwable failure) {
+        deadline.cancel();
+      }
+    });
+    return result;
+  }
+}
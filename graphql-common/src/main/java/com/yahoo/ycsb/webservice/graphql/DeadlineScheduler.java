@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces execution deadlines of in-flight HTTP requests from a single shared timer thread.
+ * A deadline that expires aborts exactly the request or exchange it was started for, so concurrent
+ * client threads can never cancel each other's requests.
+ */
+public final class DeadlineScheduler {
+  private static final ScheduledThreadPoolExecutor TIMER;
+
+  static {
+    TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "graphql-deadline");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    // Nearly every deadline is cancelled because the request completed in time, so do not
+    // let cancelled tasks pile up in the queue until they would have fired.
+    TIMER.setRemoveOnCancelPolicy(true);
+  }
+
+  private DeadlineScheduler() {
+    // not used
+  }
+
+  /**
+   * Starts the execution deadline of a request.
+   *
+   * @param request The request to abort once the deadline expires.
+   * @param timeoutMs The execution time limit in milliseconds.
+   * @return The deadline, which must be cancelled when the request is done.
+   */
+  public static Deadline start(final HttpUriRequest request, long timeoutMs) {
+    return schedule(new Deadline(new Runnable() {
+      @Override
+      public void run() {
+        request.abort();
+      }
+    }), timeoutMs);
+  }
+
+  /**
+   * Starts the execution deadline of an asynchronous exchange.
+   *
+   * @param exchange The exchange to cancel once the deadline expires.
+   * @param timeoutMs The execution time limit in milliseconds.
+   * @return The deadline, which must be cancelled when the exchange is done.
+   */
+  public static Deadline start(final Future<?> exchange, long timeoutMs) {
+    return schedule(new Deadline(new Runnable() {
+      @Override
+      public void run() {
+        exchange.cancel(true);
+      }
+    }), timeoutMs);
+  }
+
+  /**
+   * Runs an action on the timer thread once a delay expired, unless it is cancelled before.
+   *
+   * @param action The action to run.
+   * @param delayMs The delay in milliseconds.
+   * @return The deadline, which cancels the action.
+   */
+  public static Deadline start(Runnable action, long delayMs) {
+    return schedule(new Deadline(action), delayMs);
+  }
+
+  private static Deadline schedule(Deadline deadline, long timeoutMs) {
+    deadline.future = TIMER.schedule(deadline, timeoutMs, TimeUnit.MILLISECONDS);
+    return deadline;
+  }
+
+  /**
+   * The execution deadline of one request.
+   */
+  public static final class Deadline implements Runnable {
+    private final Runnable expiry;
+    private volatile boolean expired = false;
+    private volatile ScheduledFuture<?> future;
+
+    private Deadline(Runnable expiry) {
+      this.expiry = expiry;
+    }
+
+    @Override
+    public void run() {
+      expired = true;
+      expiry.run();
+    }
+
+    /**
+     * @return true if the request was aborted because the deadline expired.
+     */
+    public boolean isExpired() {
+      return expired;
+    }
+
+    /**
+     * Stops the deadline once the request is done.
+     */
+    public void cancel() {
+      future.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,469 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.AsyncDB;
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.ClientThread;
+import com.yahoo.ycsb.DBException;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.webservice.graphql.DeadlineScheduler.Deadline;
+import com.yahoo.ycsb.workloads.MultiTableSupport;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Sends the operations of the social workload to a GraphQL endpoint for benchmarking purpose.
+ * Using Apache HttpClient over standard Java HTTP API as this is more flexible
+ * and provides better functionality. For example HttpClient can automatically
+ * handle redirects and proxy authentication which the standard Java API can't.
+ *
+ * The class owns the whole request pipeline: the shared pooled, asynchronous or HTTP/2 transport, rendering
+ * the operation templates, batching, scanning the responses and mapping them to a {@link Status}. A binding
+ * for a GraphQL server only supplies the templates of the operations in the schema of that server and its
+ * default endpoint.
+ */
+public abstract class GraphQLClient extends AsyncDB {
+  /**
+   * The URL of the GraphQL endpoint.
+   */
+  public static final String HTTP_ENDPOINT = "http.endpoint";
+  private static final String CON_TIMEOUT = "timeout.con";
+  private static final String READ_TIMEOUT = "timeout.read";
+  private static final String EXEC_TIMEOUT = "timeout.exec";
+  private static final String LOG_ENABLED = "log.enable";
+  private static final String HEADERS = "headers";
+  private static final String BATCH = "batch";
+  // Answer of a server that does not (or no longer) know the hash of a persisted query.
+  private static final Status PERSISTED_QUERY_NOT_FOUND = new Status("PERSISTED_QUERY_NOT_FOUND",
+      "The server does not know the persisted query.");
+  // Responses are scanned by the thread that reads them, which is not the client thread for asynchronous requests.
+  private static final ThreadLocal<ResponseScanner> SCANNER = new ThreadLocal<ResponseScanner>() {
+    @Override
+    protected ResponseScanner initialValue() {
+      return new ResponseScanner();
+    }
+  };
+  // The templates by the operation names used in the workload file.
+  private final Map<String, GraphQLTemplate> operations;
+  private final String defaultEndpoint;
+  private boolean logEnabled;
+  private String httpEndpoint;
+  private Properties props;
+  private String[] headers;
+  private RequestMode requestMode;
+  private PayloadGenerator payload;
+  // The size and timing histograms by operation name, or null if they are not measured.
+  private Map<String, OperationMetrics> metrics;
+  private PooledHttpTransport transport;
+  private AsyncHttpTransport asyncTransport;
+  private RequestBatcher batcher;
+  private CloseableHttpClient client;
+  private int conTimeout = 10000;
+  private int readTimeout = 10000;
+  private int execTimeout = 10000;
+  protected MultiTableSupport multiTable;
+  private final RequestBuffer body = new RequestBuffer();
+
+  /**
+   * @param operations The templates of the operations by the names used in the workload file, which the binding
+   *                   compiled once with {@link GraphQLTemplate#compile(String)}.
+   * @param defaultEndpoint The endpoint the binding sends to unless {@value #HTTP_ENDPOINT} is set.
+   */
+  protected GraphQLClient(Map<String, GraphQLTemplate> operations, String defaultEndpoint) {
+    this.operations = operations;
+    this.defaultEndpoint = defaultEndpoint;
+  }
+
+  @Override
+  public void init() throws DBException {
+    props = getProperties();
+    httpEndpoint = props.getProperty(HTTP_ENDPOINT, defaultEndpoint);
+    conTimeout = Integer.valueOf(props.getProperty(CON_TIMEOUT, "10")) * 1000;
+    readTimeout = Integer.valueOf(props.getProperty(READ_TIMEOUT, "10")) * 1000;
+    execTimeout = Integer.valueOf(props.getProperty(EXEC_TIMEOUT, "10")) * 1000;
+    logEnabled = Boolean.valueOf(props.getProperty(LOG_ENABLED, "false").trim());
+    headers = props.getProperty(HEADERS, "Content-Type application/json").trim().split(" ");
+    try {
+      requestMode = RequestMode.fromProperties(props);
+      payload = PayloadGenerator.fromProperties(props);
+    } catch (IllegalArgumentException e) {
+      throw new DBException(e.getMessage());
+    }
+    multiTable = MultiTableSupport.getInstance(props);
+    if (Boolean.parseBoolean(props.getProperty(OperationMetrics.METRICS_PROPERTY,
+        OperationMetrics.METRICS_PROPERTY_DEFAULT).trim())) {
+      List<String> names = new ArrayList<>(operations.keySet());
+      names.add(BATCH);
+      metrics = OperationMetrics.forOperations(Measurements.getMeasurements(), names);
+    }
+    setupClient();
+
+  }
+
+  private void setupClient() throws DBException {
+    RequestConfig.Builder requestBuilder = RequestConfig.custom();
+    requestBuilder = requestBuilder.setConnectTimeout(conTimeout);
+    requestBuilder = requestBuilder.setConnectionRequestTimeout(readTimeout);
+    requestBuilder = requestBuilder.setSocketTimeout(readTimeout);
+    // Client threads that keep several operations in flight submit them through the non-blocking transport,
+    // and so do all client threads when their requests are multiplexed over HTTP/2 connections.
+    int inflight = Integer.parseInt(props.getProperty(ClientThread.ASYNC_INFLIGHT_PROPERTY,
+        ClientThread.ASYNC_INFLIGHT_PROPERTY_DEFAULT));
+    boolean http2;
+    try {
+      http2 = AsyncHttpTransport.isHttp2(props);
+    } catch (IllegalArgumentException e) {
+      throw new DBException(e.getMessage());
+    }
+    if (inflight > 1 || http2) {
+      try {
+        asyncTransport = AsyncHttpTransport.acquire(props, requestBuilder.build());
+      } catch (IOException e) {
+        throw new DBException(e);
+      }
+    } else {
+      transport = PooledHttpTransport.acquire(props, requestBuilder.build());
+      client = transport.getClient();
+    }
+
+    // Batches are filled from the operations a client thread keeps in flight.
+    int batchSize = Integer.parseInt(props.getProperty(RequestBatcher.BATCH_SIZE_PROPERTY,
+        RequestBatcher.BATCH_SIZE_PROPERTY_DEFAULT));
+    if (batchSize > 1) {
+      if (asyncTransport == null) {
+        System.err.println("WARNING: " + RequestBatcher.BATCH_SIZE_PROPERTY + " requires "
+            + ClientThread.ASYNC_INFLIGHT_PROPERTY + " > 1, operations are sent one by one.");
+        return;
+      }
+      if (inflight < batchSize) {
+        System.err.println("WARNING: " + ClientThread.ASYNC_INFLIGHT_PROPERTY + " is lower than "
+            + RequestBatcher.BATCH_SIZE_PROPERTY + ", batches are only sent after "
+            + RequestBatcher.BATCH_LINGER_PROPERTY + ".");
+      }
+      long lingerMs = Long.parseLong(props.getProperty(RequestBatcher.BATCH_LINGER_PROPERTY,
+          RequestBatcher.BATCH_LINGER_PROPERTY_DEFAULT));
+      batcher = new RequestBatcher(new RequestBatcher.Sender() {
+        @Override
+        public CompletableFuture<List<Status>> send(byte[] batch, int count) {
+          return sendBatch(batch, count);
+        }
+      }, batchSize, lingerMs);
+    }
+  }
+
+  @Override
+  public void cleanup() throws DBException {
+    try {
+      PooledHttpTransport.release(transport);
+      AsyncHttpTransport.release(asyncTransport);
+    } catch (IOException e) {
+      throw new DBException(e);
+    }
+  }
+
+  @Override
+  public Status read(String operation, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    return readAsync(operation, key, fields, result).join();
+  }
+
+  @Override
+  public CompletableFuture<Status> readAsync(String operation, String key,
+                                             Set<String> fields, Map<String, ByteIterator> result) {
+    return execute(operation, key);
+  }
+
+  @Override
+  public Status insert(String operation, String key, Map<String, ByteIterator> values) {
+    return insertAsync(operation, key, values).join();
+  }
+
+  @Override
+  public CompletableFuture<Status> insertAsync(String operation, String key, Map<String, ByteIterator> values) {
+    return execute(operation, key);
+  }
+
+  @Override
+  public Status update(String operation, String key, Map<String, ByteIterator> values) {
+    return updateAsync(operation, key, values).join();
+  }
+
+  @Override
+  public CompletableFuture<Status> updateAsync(String operation, String key, Map<String, ByteIterator> values) {
+    return execute(operation, key);
+  }
+
+  @Override
+  public Status delete(String operation, String endpoint) {
+    return Status.NOT_IMPLEMENTED;
+  }
+
+  @Override
+  public Status scan(String operation, String startkey, int recordcount, Set<String> fields,
+                     Vector<HashMap<String, ByteIterator>> result) {
+    return Status.NOT_IMPLEMENTED;
+  }
+
+  private Status handleExceptions(Throwable e, String operation) {
+    if (logEnabled) {
+      System.err.println(new StringBuilder(operation).append(" | ")
+          .append(e.getClass().getName()).append(" occured | Error message: ")
+          .append(e.getMessage()).toString());
+    }
+
+    if (e instanceof ClientProtocolException) {
+      return Status.BAD_REQUEST;
+    }
+    return Status.ERROR;
+  }
+
+  private CompletableFuture<Status> execute(final String operation, String key) {
+    final GraphQLTemplate template = operations.get(operation);
+    if (template == null) {
+      return CompletableFuture.completedFuture(Status.NOT_IMPLEMENTED);
+    }
+    try {
+      body.reset();
+      template.render(body, requestMode, payload, key, multiTable);
+    } catch (Exception e) {
+      return CompletableFuture.completedFuture(handleExceptions(e, operation));
+    }
+
+    // An asynchronous request is only sent once this thread has moved on to render the next one, so it gets
+    // its own copy.
+    final byte[] content = asyncTransport == null ? body.array() : body.toByteArray();
+    final int length = body.size();
+    CompletableFuture<Status> status = send(content, length, operation);
+    if (requestMode != RequestMode.PERSISTED) {
+      return status;
+    }
+    return status.thenCompose(new Function<Status, CompletionStage<Status>>() {
+      @Override
+      public CompletionStage<Status> apply(Status first) {
+        if (first != PERSISTED_QUERY_NOT_FOUND) {
+          return CompletableFuture.completedFuture(persisted(template, first));
+        }
+        // The server dropped the query, e.g. after a restart: register it again with the same variables.
+        template.markNotPersisted();
+        byte[] full = template.withQuery(content, length);
+        return send(full, full.length, operation).thenApply(new Function<Status, Status>() {
+          @Override
+          public Status apply(Status retry) {
+            return persisted(template, retry == PERSISTED_QUERY_NOT_FOUND ? Status.ERROR : retry);
+          }
+        });
+      }
+    });
+  }
+
+  private static Status persisted(GraphQLTemplate template, Status status) {
+    if (status.isOk()) {
+      template.markPersisted();
+    }
+    return status;
+  }
+
+  private CompletableFuture<Status> send(byte[] content, int length, final String operation) {
+    if (batcher != null) {
+      return batcher.add(content, length);
+    }
+    final String data = logEnabled ? new String(content, 0, length, StandardCharsets.UTF_8) : null;
+    if (asyncTransport == null) {
+      Status status;
+      try {
+        status = httpExecute(new HttpPost(httpEndpoint), content, length, data, operation);
+      } catch (Exception e) {
+        status = handleExceptions(e, operation);
+      }
+      return CompletableFuture.completedFuture(status);
+    }
+    final HttpPost request = new HttpPost(httpEndpoint);
+    prepareRequest(request, content, length);
+    final long start = System.nanoTime();
+    return asyncTransport.execute(request, execTimeout).handle(new BiFunction<HttpResponse, Throwable, Status>() {
+      @Override
+      public Status apply(HttpResponse response, Throwable failure) {
+        if (failure != null) {
+          return handleExceptions(failure, operation);
+        }
+        try {
+          return readResponse(response, data, operation, length, start);
+        } catch (Exception e) {
+          return handleExceptions(e, operation);
+        }
+      }
+    });
+  }
+
+  private CompletableFuture<List<Status>> sendBatch(final byte[] batch, final int count) {
+    final String data = logEnabled ? new String(batch, StandardCharsets.UTF_8) : null;
+    final HttpPost request = new HttpPost(httpEndpoint);
+    prepareRequest(request, batch, batch.length);
+    final long start = System.nanoTime();
+    return asyncTransport.execute(request, execTimeout).handle(
+        new BiFunction<HttpResponse, Throwable, List<Status>>() {
+          @Override
+          public List<Status> apply(HttpResponse response, Throwable failure) {
+            if (failure != null) {
+              return Collections.nCopies(count, handleExceptions(failure, BATCH));
+            }
+            try {
+              return readBatchResponse(response, data, count, batch.length, start);
+            } catch (Exception e) {
+              return Collections.nCopies(count, handleExceptions(e, BATCH));
+            }
+          }
+        });
+  }
+
+  private void prepareRequest(HttpEntityEnclosingRequestBase request, byte[] content, int length) {
+    for (int i = 0; i < headers.length; i = i + 2) {
+      request.setHeader(headers[i], headers[i + 1]);
+    }
+    request.setEntity(new ByteArrayEntity(content, 0, length, ContentType.APPLICATION_FORM_URLENCODED));
+  }
+
+  private Status httpExecute(HttpEntityEnclosingRequestBase request, byte[] content, int length, String data,
+                             String operation) throws IOException {
+    prepareRequest(request, content, length);
+    // An expired deadline aborts this request only, which fails the blocked execute or read below.
+    Deadline deadline = DeadlineScheduler.start(request, execTimeout);
+    try {
+      long start = System.nanoTime();
+      CloseableHttpResponse response = client.execute(request);
+      Status status = readResponse(response, data, operation, length, start);
+      response.close();
+      return status;
+    } catch (IOException e) {
+      if (deadline.isExpired()) {
+        throw new TimeoutException();
+      }
+      throw e;
+    } finally {
+      deadline.cancel();
+    }
+  }
+
+  private Status readResponse(HttpResponse response, String data, String operation, int length, long start)
+      throws IOException {
+    return getStatus(response.getStatusLine().getStatusCode(), scan(response, data, operation, length, start)
+        .getErrors());
+  }
+
+  // Maps each result of a batch to the status of its operation.
+  private List<Status> readBatchResponse(HttpResponse response, String data, int count, int length, long start)
+      throws IOException {
+    int responseCode = response.getStatusLine().getStatusCode();
+    ResponseScanner scanner = scan(response, data, BATCH, length, start);
+    if (responseCode / 100 != 2) {
+      return Collections.nCopies(count, getStatus(responseCode, scanner.getErrors()));
+    }
+    if (!scanner.isArray() || scanner.getResults() != count) {
+      System.err.print("FAILED BATCH RESPONSE: " + scanner.getResults() + " results for " + count
+          + " operations\n");
+      return Collections.nCopies(count, Status.ERROR);
+    }
+    List<Status> statuses = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      statuses.add(getStatus(responseCode, scanner.getErrors(i)));
+    }
+    return statuses;
+  }
+
+  // Scans the response for errors as it is read; the data is not kept unless it is logged. The response headers
+  // have arrived when this is called, and the request was sent at start.
+  private ResponseScanner scan(HttpResponse response, String data, String operation, int length, long start)
+      throws IOException {
+    long headersArrived = System.nanoTime();
+    ResponseScanner scanner = SCANNER.get();
+    scanner.reset(logEnabled);
+    HttpEntity responseEntity = response.getEntity();
+    // If null entity don't bother about connection release.
+    if (responseEntity != null) {
+      InputStream stream = responseEntity.getContent();
+      scanner.scan(stream);
+
+      if(logEnabled){
+        System.err.print("REQUEST: " + data + "\n");
+        System.err.print("RESPONSE: " + scanner.getContent() + "\n");
+      }
+      // Closing the input stream will trigger connection release.
+      stream.close();
+    }
+    EntityUtils.consumeQuietly(responseEntity);
+    if (metrics != null) {
+      metrics.get(operation).measure(length, scanner, start, headersArrived, System.nanoTime());
+    }
+    return scanner;
+  }
+
+  // Maps HTTP status codes to YCSB status codes.
+  private Status getStatus(int responseCode, String errors) {
+    int rc = responseCode / 100;
+    if (requestMode == RequestMode.PERSISTED && errors != null && errors.contains("PersistedQueryNotFound")) {
+      return PERSISTED_QUERY_NOT_FOUND;
+    } else if (responseCode == 400) {
+      return Status.BAD_REQUEST;
+    } else if (responseCode == 403) {
+      return Status.FORBIDDEN;
+    } else if (responseCode == 404) {
+      return Status.NOT_FOUND;
+    } else if (responseCode == 501) {
+      return Status.NOT_IMPLEMENTED;
+    } else if (responseCode == 503) {
+      return Status.SERVICE_UNAVAILABLE;
+    } else if (rc == 5) {
+      return Status.ERROR;
+    } else if (rc == 2 && errors != null) {
+      System.err.print("FAILED REQUEST RESPONSE: {\"errors\": " + errors + "}\n");
+      return Status.ERROR;
+    }
+    return Status.OK;
+  }
+
+  /**
+   * Private exception class for execution timeout.
+   */
+  class TimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TimeoutException() {
+      super("HTTP Request exceeded execution time limit.");
+    }
+
+  }
+}
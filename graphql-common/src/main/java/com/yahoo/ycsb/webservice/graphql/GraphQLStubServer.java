@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A GraphQL endpoint that answers every request with a fixed result after a configurable delay.
+ * A batch (a JSON array of requests) is answered with one result per request.
+ * It is used to benchmark the client side of the bindings (thread model, transport, request
+ * building) without a database behind the endpoint.
+ *
+ * Usage: GraphQLStubServer [port] [delay in milliseconds]
+ */
+public final class GraphQLStubServer {
+  private static final byte[] RESPONSE = "{\"data\":{\"result\":{\"id\":\"1\"}}}".getBytes(StandardCharsets.UTF_8);
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Creates a stub server.
+   *
+   * @param port The port to listen on, 0 for any free port.
+   * @param delayMs The time each request takes to answer, which simulates server side latency.
+   */
+  public GraphQLStubServer(int port, final long delayMs) throws IOException {
+    // Without TCP_NODELAY the response body waits for the delayed ACK of the headers, which adds
+    // about 40 ms to every request.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 4096);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        RequestBuffer request = new RequestBuffer();
+        try (InputStream in = exchange.getRequestBody()) {
+          byte[] buffer = new byte[8192];
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            request.write(buffer, 0, read);
+          }
+        }
+        byte[] response = RESPONSE;
+        if (request.size() > 0 && request.array()[0] == '[') {
+          ResponseScanner scanner = new ResponseScanner();
+          scanner.reset(false);
+          scanner.scan(request.array(), 0, request.size());
+          response = batchResponse(scanner.getResults());
+        }
+        if (delayMs > 0) {
+          try {
+            Thread.sleep(delayMs);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(response);
+        }
+      }
+    });
+  }
+
+  private static byte[] batchResponse(int count) {
+    RequestBuffer response = new RequestBuffer();
+    response.write('[');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        response.write(',');
+      }
+      response.write(RESPONSE);
+    }
+    response.write(']');
+    return response.toByteArray();
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * @return The port the server listens on.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 4466;
+    long delayMs = args.length > 1 ? Long.parseLong(args[1]) : 0;
+    GraphQLStubServer stub = new GraphQLStubServer(port, delayMs);
+    stub.start();
+    System.err.println("GraphQL stub listening on http://127.0.0.1:" + stub.getPort() + "/ with " + delayMs +
+        " ms delay");
+    Thread.currentThread().join();
+  }
+}
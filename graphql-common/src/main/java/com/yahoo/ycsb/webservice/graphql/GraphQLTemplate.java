@@ -0,0 +1,402 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.workloads.CountClass;
+import com.yahoo.ycsb.workloads.KeyBuffer;
+import com.yahoo.ycsb.workloads.MultiTableSupport;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A GraphQL operation that is parsed once into literal byte segments and parameter slots, and
+ * rendered as a complete JSON request body for every call.
+ *
+ * The document is plain GraphQL in which every argument value that changes per call is a slot:
+ * <ul>
+ * <li>${key}: the key passed to the DB operation.</li>
+ * <li>${ref:table}: an existing key of the table, as chosen by the table's key chooser.</li>
+ * <li>${rand:length}: a random upper case string of the given length, see {@link PayloadGenerator}.</li>
+ * </ul>
+ * Every slot renders as a complete GraphQL string literal.
+ *
+ * For the {@link RequestMode#VARIABLES} and {@link RequestMode#PERSISTED} modes the slots are
+ * turned into operation variables: ${key} becomes $key and every other slot $v0, $v1, ... in
+ * document order, declared as ID! or String! after the operation keyword. The query text is then
+ * the same for every call, which allows the server to cache the parsed and validated document.
+ */
+public final class GraphQLTemplate {
+  private static final byte[] QUOTE = {'\\', '"'};
+  private static final byte[] VARIABLES_END = {'"', '}', '}'};
+  private static final byte[] EMPTY_VARIABLES_END = {'}', '}'};
+
+  private final String document;
+  private final byte[][] literals;
+  private final Slot[] slots;
+
+  private final String variablesDocument;
+  private final String hash;
+  private final Slot[] variables;
+  private final byte[][] variableHeads;
+  private final byte[] variablesPrefix;
+  private final byte[] persistedPrefix;
+  private final byte[] persistedFullPrefix;
+
+  // Set once the server has accepted the full query of a persisted request, from then on only
+  // the hash is sent. Templates are shared by all client threads.
+  private volatile boolean persisted;
+
+  private GraphQLTemplate(String document, byte[][] literals, Slot[] slots, String variablesDocument,
+                          Slot[] variables, byte[][] variableHeads) {
+    this.document = document;
+    this.literals = literals;
+    this.slots = slots;
+    this.variablesDocument = variablesDocument;
+    this.variables = variables;
+    this.variableHeads = variableHeads;
+    this.hash = sha256(variablesDocument);
+
+    StringBuilder query = new StringBuilder("\"query\": \"");
+    escape(variablesDocument, 0, variablesDocument.length(), query);
+    query.append("\", ");
+    String extensions = "\"extensions\": {\"persistedQuery\": {\"version\": 1, \"sha256Hash\": \"" + hash
+        + "\"}}, ";
+    String vars = "\"variables\": {";
+    this.variablesPrefix = ("{" + query + vars).getBytes(StandardCharsets.UTF_8);
+    this.persistedPrefix = ("{" + extensions + vars).getBytes(StandardCharsets.UTF_8);
+    this.persistedFullPrefix = ("{" + query + extensions + vars).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Parses a GraphQL document.
+   *
+   * @param document The document with ${...} slots.
+   * @throws IllegalArgumentException if a slot is malformed.
+   */
+  public static GraphQLTemplate compile(String document) {
+    List<byte[]> literals = new ArrayList<>();
+    List<Slot> slots = new ArrayList<>();
+    List<Slot> variables = new ArrayList<>();
+    List<byte[]> variableHeads = new ArrayList<>();
+    StringBuilder declarations = new StringBuilder();
+    StringBuilder body = new StringBuilder();
+    StringBuilder literal = new StringBuilder("{\"query\": \"");
+    boolean hasKey = false;
+    int pos = 0;
+    while (true) {
+      int start = document.indexOf("${", pos);
+      if (start < 0) {
+        break;
+      }
+      int end = document.indexOf('}', start);
+      if (end < 0) {
+        throw new IllegalArgumentException("Unterminated slot in GraphQL template: " + document);
+      }
+      escape(document, pos, start, literal);
+      literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+      literal.setLength(0);
+      Slot slot = Slot.parse(document.substring(start + 2, end));
+      slots.add(slot);
+
+      body.append(document, pos, start);
+      String name;
+      if (slot.kind == Slot.Kind.KEY) {
+        name = "key";
+      } else {
+        name = "v" + (variables.size() - (hasKey ? 1 : 0));
+      }
+      body.append('$').append(name);
+      if (slot.kind != Slot.Kind.KEY || !hasKey) {
+        hasKey |= slot.kind == Slot.Kind.KEY;
+        declarations.append(declarations.length() == 0 ? "(" : ", ")
+            .append('$').append(name).append(": ").append(slot.kind == Slot.Kind.RAND ? "String!" : "ID!");
+        String head = (variables.isEmpty() ? "\"" : "\", \"") + name + "\": \"";
+        variableHeads.add(head.getBytes(StandardCharsets.UTF_8));
+        variables.add(slot);
+      }
+      pos = end + 1;
+    }
+    escape(document, pos, document.length(), literal);
+    literal.append("\"}");
+    literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+    body.append(document, pos, document.length());
+    if (declarations.length() > 0) {
+      declarations.append(')');
+    }
+    return new GraphQLTemplate(document, literals.toArray(new byte[literals.size()][]),
+        slots.toArray(new Slot[slots.size()]), declare(body.toString(), declarations.toString()),
+        variables.toArray(new Slot[variables.size()]), variableHeads.toArray(new byte[variableHeads.size()][]));
+  }
+
+  // Inserts the variable declarations between the operation keyword (and name) and the selection
+  // set. A shorthand document without keyword becomes a query.
+  private static String declare(String document, String declarations) {
+    if (declarations.isEmpty()) {
+      return document;
+    }
+    int brace = document.indexOf('{');
+    String head = document.substring(0, brace).trim();
+    if (head.isEmpty()) {
+      head = "query";
+    }
+    return head + declarations + document.substring(brace);
+  }
+
+  /**
+   * Renders the JSON request body of one call.
+   *
+   * @param out The buffer to append the body to.
+   * @param key The key passed to the DB operation.
+   * @param multiTable The key sequences and choosers of the tables.
+   */
+  public void render(RequestBuffer out, String key, MultiTableSupport multiTable) {
+    render(out, PayloadGenerator.BLOCK, key, multiTable);
+  }
+
+  /**
+   * Renders the JSON request body of one call.
+   *
+   * @param out The buffer to append the body to.
+   * @param payload How random strings are generated.
+   * @param key The key passed to the DB operation.
+   * @param multiTable The key sequences and choosers of the tables.
+   */
+  public void render(RequestBuffer out, PayloadGenerator payload, String key, MultiTableSupport multiTable) {
+    for (int i = 0; i < slots.length; i++) {
+      out.write(literals[i]);
+      out.write(QUOTE);
+      slots[i].render(out, payload, key, multiTable);
+      out.write(QUOTE);
+    }
+    out.write(literals[slots.length]);
+  }
+
+  /**
+   * Renders the JSON request body of one call in the given mode. In the persisted mode the query
+   * text is included until {@link #markPersisted()} was called.
+   *
+   * @param out The buffer to append the body to.
+   * @param mode How the parameters are sent.
+   * @param key The key passed to the DB operation.
+   * @param multiTable The key sequences and choosers of the tables.
+   */
+  public void render(RequestBuffer out, RequestMode mode, String key, MultiTableSupport multiTable) {
+    render(out, mode, PayloadGenerator.BLOCK, key, multiTable);
+  }
+
+  /**
+   * Renders the JSON request body of one call in the given mode. In the persisted mode the query
+   * text is included until {@link #markPersisted()} was called.
+   *
+   * @param out The buffer to append the body to.
+   * @param mode How the parameters are sent.
+   * @param payload How random strings are generated.
+   * @param key The key passed to the DB operation.
+   * @param multiTable The key sequences and choosers of the tables.
+   */
+  public void render(RequestBuffer out, RequestMode mode, PayloadGenerator payload, String key,
+                     MultiTableSupport multiTable) {
+    switch (mode) {
+    case INLINE:
+      render(out, payload, key, multiTable);
+      return;
+    case VARIABLES:
+      out.write(variablesPrefix);
+      break;
+    case PERSISTED:
+      out.write(persisted ? persistedPrefix : persistedFullPrefix);
+      break;
+    default:
+      throw new IllegalStateException(mode.name());
+    }
+    for (int i = 0; i < variables.length; i++) {
+      out.write(variableHeads[i]);
+      variables[i].render(out, payload, key, multiTable);
+    }
+    out.write(variables.length == 0 ? EMPTY_VARIABLES_END : VARIABLES_END);
+  }
+
+  /**
+   * Adds the query text to a body rendered in the persisted mode, for the retry after the server
+   * answered that it does not know the hash. The variable values are kept.
+   *
+   * @param body The rendered body.
+   * @param length The number of valid bytes in body.
+   * @return A new body with query text and hash.
+   */
+  public byte[] withQuery(byte[] body, int length) {
+    if (length < persistedPrefix.length
+        || !Arrays.equals(Arrays.copyOf(body, persistedPrefix.length), persistedPrefix)) {
+      return Arrays.copyOf(body, length);
+    }
+    int variablesLength = length - persistedPrefix.length;
+    byte[] full = Arrays.copyOf(persistedFullPrefix, persistedFullPrefix.length + variablesLength);
+    System.arraycopy(body, persistedPrefix.length, full, persistedFullPrefix.length, variablesLength);
+    return full;
+  }
+
+  /**
+   * Records that the server accepted the full query of a persisted request, so later requests
+   * only send the hash.
+   */
+  public void markPersisted() {
+    if (!persisted) {
+      persisted = true;
+    }
+  }
+
+  /**
+   * Records that the server no longer knows the hash, so the next requests send the query again.
+   */
+  public void markNotPersisted() {
+    if (persisted) {
+      persisted = false;
+    }
+  }
+
+  public boolean isPersisted() {
+    return persisted;
+  }
+
+  /**
+   * @return The query text sent in the variables and persisted modes.
+   */
+  public String getVariablesDocument() {
+    return variablesDocument;
+  }
+
+  /**
+   * @return The hex encoded SHA-256 hash of the variables document, as sent in persisted requests.
+   */
+  public String getHash() {
+    return hash;
+  }
+
+  /**
+   * @return The GraphQL document the template was compiled from.
+   */
+  public String getDocument() {
+    return document;
+  }
+
+  // The document ends up inside a JSON string, so quotes and backslashes must be escaped and
+  // line breaks are folded into spaces.
+  private static void escape(String document, int from, int to, StringBuilder out) {
+    for (int i = from; i < to; i++) {
+      char c = document.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c == '\n' || c == '\r' || c == '\t') {
+        out.append(' ');
+      } else {
+        out.append(c);
+      }
+    }
+  }
+
+  private static String sha256(String text) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * A table resolved in one MultiTableSupport.
+   */
+  private static final class TableRef {
+    private final MultiTableSupport multiTable;
+    private final CountClass counter;
+
+    private TableRef(MultiTableSupport multiTable, CountClass counter) {
+      this.multiTable = multiTable;
+      this.counter = counter;
+    }
+  }
+
+  /**
+   * A parameter of the template.
+   */
+  private static final class Slot {
+    private enum Kind { KEY, REF, RAND }
+
+    private final Kind kind;
+    private final String table;
+    private final int length;
+    // The table of a ref slot, looked up by name the first time the slot renders with a MultiTableSupport.
+    private volatile TableRef resolved;
+
+    private Slot(Kind kind, String table, int length) {
+      this.kind = kind;
+      this.table = table;
+      this.length = length;
+    }
+
+    static Slot parse(String spec) {
+      int colon = spec.indexOf(':');
+      String name = colon < 0 ? spec : spec.substring(0, colon);
+      String arg = colon < 0 ? null : spec.substring(colon + 1);
+      if (name.equals("key") && arg == null) {
+        return new Slot(Kind.KEY, null, 0);
+      } else if (name.equals("ref") && arg != null) {
+        return new Slot(Kind.REF, arg, 0);
+      } else if (name.equals("rand") && arg != null) {
+        return new Slot(Kind.RAND, null, Integer.parseInt(arg));
+      }
+      throw new IllegalArgumentException("Unknown slot in GraphQL template: ${" + spec + "}");
+    }
+
+    private CountClass counter(MultiTableSupport multiTable) {
+      TableRef ref = resolved;
+      if (ref == null || ref.multiTable != multiTable) {
+        ref = new TableRef(multiTable, multiTable.getCounter(table));
+        resolved = ref;
+      }
+      return ref.counter;
+    }
+
+    void render(RequestBuffer out, PayloadGenerator payload, String key, MultiTableSupport multiTable) {
+      switch (kind) {
+      case KEY:
+        out.writeAscii(key);
+        break;
+      case REF:
+        // Keys are encoded into a buffer of the thread and copied right away, without a String in between.
+        KeyBuffer ref = multiTable.nextKey(counter(multiTable));
+        out.writeAscii(ref.array(), ref.length());
+        break;
+      case RAND:
+        payload.write(out, length);
+        break;
+      default:
+        throw new IllegalStateException(kind.name());
+      }
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Sends the requests of all client threads as streams over a few HTTP/2 connections. Plain http endpoints are
+ * spoken to in cleartext HTTP/2 (h2c) with prior knowledge, https endpoints negotiate HTTP/2 with ALPN.
+ *
+ * Every connection has its own I/O reactor thread and carries at most a given number of concurrent streams;
+ * requests beyond that wait in the order they were sent until a stream of the connection completes. Requests
+ * are spread over the connections in turn. The exchanges are converted from and to the HttpClient 4 messages
+ * the bindings build and read, so they do not depend on the HTTP version.
+ */
+final class Http2Multiplexer implements Closeable {
+  private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+  private final Connection[] connections;
+  private final AtomicInteger turn = new AtomicInteger();
+
+  /**
+   * @param connectionCount The number of connections to open.
+   * @param maxStreams The maximum number of concurrent streams per connection.
+   * @param requestConfig The timeouts of the bindings; the connect, connection request and socket timeouts apply.
+   */
+  Http2Multiplexer(int connectionCount, int maxStreams, RequestConfig requestConfig) {
+    if (connectionCount < 1 || maxStreams < 1) {
+      throw new IllegalArgumentException("HTTP/2 needs at least one connection and one stream per connection.");
+    }
+    connections = new Connection[connectionCount];
+    for (int i = 0; i < connectionCount; i++) {
+      connections[i] = new Connection(maxStreams, requestConfig);
+    }
+  }
+
+  /**
+   * Sends a request on the next connection.
+   *
+   * @see AsyncHttpTransport#execute(HttpUriRequest, long)
+   */
+  CompletableFuture<HttpResponse> execute(HttpUriRequest request, long timeoutMs) {
+    final Exchange exchange;
+    try {
+      exchange = new Exchange(convert(request));
+    } catch (IOException e) {
+      CompletableFuture<HttpResponse> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+    // The deadline covers the time a request waits for a stream, too.
+    final DeadlineScheduler.Deadline deadline = DeadlineScheduler.start(new Runnable() {
+      @Override
+      public void run() {
+        exchange.expire();
+      }
+    }, timeoutMs);
+    Connection connection = connections[(turn.getAndIncrement() & Integer.MAX_VALUE) % connections.length];
+    connection.submit(exchange);
+    exchange.result.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+      @Override
+      public void accept(HttpResponse response, Throwable failure) {
+        deadline.cancel();
+      }
+    });
+    return exchange.result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (Connection connection : connections) {
+      connection.client.close(CloseMode.GRACEFUL);
+    }
+  }
+
+  private static SimpleHttpRequest convert(HttpUriRequest request) throws IOException {
+    SimpleRequestBuilder converted = SimpleRequestBuilder.create(request.getMethod()).setUri(request.getURI());
+    ContentType contentType = null;
+    for (Header header : request.getAllHeaders()) {
+      if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getName())) {
+        contentType = ContentType.parse(header.getValue());
+      } else {
+        converted.addHeader(header.getName(), header.getValue());
+      }
+    }
+    if (request instanceof HttpEntityEnclosingRequest) {
+      HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+      if (entity != null) {
+        if (contentType == null && entity.getContentType() != null) {
+          contentType = ContentType.parse(entity.getContentType().getValue());
+        }
+        converted.setBody(EntityUtils.toByteArray(entity), contentType);
+      }
+    }
+    return converted.build();
+  }
+
+  private static HttpResponse convert(SimpleHttpResponse response) {
+    BasicHttpResponse converted =
+        new BasicHttpResponse(new BasicStatusLine(HTTP_2, response.getCode(), response.getReasonPhrase()));
+    for (org.apache.hc.core5.http.Header header : response.getHeaders()) {
+      converted.addHeader(header.getName(), header.getValue());
+    }
+    byte[] body = response.getBodyBytes();
+    converted.setEntity(new ByteArrayEntity(body == null ? new byte[0] : body));
+    return converted;
+  }
+
+  /**
+   * A request and the future of its response.
+   */
+  private static final class Exchange {
+    private final SimpleHttpRequest request;
+    private final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+    private volatile Future<SimpleHttpResponse> stream;
+
+    private Exchange(SimpleHttpRequest request) {
+      this.request = request;
+    }
+
+    private void expire() {
+      result.completeExceptionally(new TimeoutException("HTTP Request exceeded execution time limit."));
+      Future<SimpleHttpResponse> started = stream;
+      if (started != null) {
+        started.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * One HTTP/2 connection and the requests that wait for one of its streams.
+   */
+  private static final class Connection {
+    private final CloseableHttpAsyncClient client;
+    private final Semaphore streams;
+    private final Queue<Exchange> waiting = new ConcurrentLinkedQueue<>();
+    // The streams held back until the first stream completed, see finished().
+    private final AtomicInteger heldStreams;
+
+    private Connection(int maxStreams, RequestConfig requestConfig) {
+      streams = new Semaphore(1);
+      heldStreams = new AtomicInteger(maxStreams - 1);
+      IOReactorConfig reactorConfig = IOReactorConfig.custom()
+          .setIoThreadCount(1)
+          .setSoTimeout(Timeout.ofMilliseconds(requestConfig.getSocketTimeout()))
+          .setTcpNoDelay(true)
+          .build();
+      org.apache.hc.client5.http.config.RequestConfig config = org.apache.hc.client5.http.config.RequestConfig
+          .custom()
+          .setConnectTimeout(Timeout.ofMilliseconds(requestConfig.getConnectTimeout()))
+          .setConnectionRequestTimeout(Timeout.ofMilliseconds(requestConfig.getConnectionRequestTimeout()))
+          .setResponseTimeout(Timeout.ofMilliseconds(requestConfig.getSocketTimeout()))
+          .build();
+      // The client keeps a single connection per endpoint and opens a new one only after it was closed.
+      client = HttpAsyncClients.customHttp2()
+          .setIOReactorConfig(reactorConfig)
+          .setH2Config(H2Config.custom().setPushEnabled(false).setMaxConcurrentStreams(maxStreams).build())
+          .setDefaultRequestConfig(config)
+          .disableAutomaticRetries()
+          .disableCookieManagement()
+          .build();
+      client.start();
+    }
+
+    private void submit(Exchange exchange) {
+      waiting.add(exchange);
+      drain();
+    }
+
+    // Starts waiting requests while streams are free. Called whenever a request arrives or a stream completes,
+    // so a request does not wait while a stream is free.
+    private void drain() {
+      while (!waiting.isEmpty() && streams.tryAcquire()) {
+        Exchange next = waiting.poll();
+        if (next == null || !start(next)) {
+          streams.release();
+        }
+      }
+    }
+
+    private boolean start(final Exchange exchange) {
+      if (exchange.result.isDone()) {
+        // It expired while it waited.
+        return false;
+      }
+      exchange.stream = client.execute(exchange.request, new FutureCallback<SimpleHttpResponse>() {
+        @Override
+        public void completed(SimpleHttpResponse response) {
+          exchange.result.complete(convert(response));
+          finished();
+        }
+
+        @Override
+        public void failed(Exception e) {
+          exchange.result.completeExceptionally(e);
+          finished();
+        }
+
+        @Override
+        public void cancelled() {
+          exchange.result.completeExceptionally(
+              new TimeoutException("HTTP Request exceeded execution time limit."));
+          finished();
+        }
+      });
+      if (exchange.result.isDone()) {
+        // It expired before the stream was known.
+        exchange.stream.cancel(true);
+      }
+      return true;
+    }
+
+    private void finished() {
+      // The client connects on the first request. Requests sent while the connection is being opened may open
+      // another one (HttpCore 5.1 checks the connect future before it stores the session), so the connection
+      // carries only one stream until a stream completed and it is surely open.
+      streams.release(1 + heldStreams.getAndSet(0));
+      drain();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delegates to a {@link PoolingHttpClientConnectionManager} and reports how long each
+ * connection lease took. Leases that found the pool exhausted are additionally reported
+ * as waits, which separates client side queueing from server latency.
+ */
+class InstrumentedConnectionManager implements HttpClientConnectionManager {
+  static final String LEASE_MEASUREMENT = "HTTP-POOL-LEASE";
+  static final String WAIT_MEASUREMENT = "HTTP-POOL-WAIT";
+
+  private final PoolingHttpClientConnectionManager pool;
+  private final Measurements measurements;
+  private final int capacity;
+  private final AtomicInteger leased = new AtomicInteger();
+
+  InstrumentedConnectionManager(PoolingHttpClientConnectionManager pool, Measurements measurements) {
+    this.pool = pool;
+    this.measurements = measurements;
+    // All requests of a run go to the same endpoint, so the per route limit is the effective one.
+    this.capacity = Math.min(pool.getDefaultMaxPerRoute(), pool.getMaxTotal());
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+    final ConnectionRequest request = pool.requestConnection(route, state);
+    return new ConnectionRequest() {
+      @Override
+      public HttpClientConnection get(long timeout, TimeUnit tunit)
+          throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+        boolean exhausted = leased.get() >= capacity;
+        long st = System.nanoTime();
+        HttpClientConnection connection = request.get(timeout, tunit);
+        int micros = (int) ((System.nanoTime() - st) / 1000);
+        leased.incrementAndGet();
+        measurements.measure(LEASE_MEASUREMENT, micros);
+        if (exhausted) {
+          measurements.measure(WAIT_MEASUREMENT, micros);
+        }
+        return connection;
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+  @Override
+  public void releaseConnection(HttpClientConnection conn, Object newState, long validDuration, TimeUnit tunit) {
+    leased.decrementAndGet();
+    pool.releaseConnection(conn, newState, validDuration, tunit);
+  }
+
+  @Override
+  public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context)
+      throws IOException {
+    pool.connect(conn, route, connectTimeout, context);
+  }
+
+  @Override
+  public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+    pool.upgrade(conn, route, context);
+  }
+
+  @Override
+  public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+    pool.routeComplete(conn, route, context);
+  }
+
+  @Override
+  public void closeIdleConnections(long idletime, TimeUnit tunit) {
+    pool.closeIdleConnections(idletime, tunit);
+  }
+
+  @Override
+  public void closeExpiredConnections() {
+    pool.closeExpiredConnections();
+  }
+
+  @Override
+  public void shutdown() {
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The size and timing histograms of one GraphQL operation, which tell the network cost of an operation apart
+ * from the time the server takes:
+ * <ul>
+ * <li>REQUEST-BYTES-[operation]: the bytes of the request body.</li>
+ * <li>RESPONSE-BYTES-[operation]: the bytes of the response body.</li>
+ * <li>RESPONSE-OBJECTS-[operation]: the JSON objects of the response.</li>
+ * <li>TTFB-[operation]: the microseconds until the response headers arrived. The asynchronous transport only
+ * hands over a response once its body arrived, so for it this includes the transfer of the body.</li>
+ * <li>TOTAL-[operation]: the microseconds until the response was read.</li>
+ * </ul>
+ * They are exported like the latencies of the operations, with the units of the exporters meaning bytes or
+ * objects for the sizes.
+ */
+public final class OperationMetrics {
+  /**
+   * Whether to measure the size and timing histograms of every operation.
+   */
+  public static final String METRICS_PROPERTY = "graphql.responsemetrics";
+  public static final String METRICS_PROPERTY_DEFAULT = "false";
+
+  private final Measurements.Handle requestBytes;
+  private final Measurements.Handle responseBytes;
+  private final Measurements.Handle responseObjects;
+  private final Measurements.Handle firstByte;
+  private final Measurements.Handle total;
+
+  private OperationMetrics(Measurements measurements, String operation) {
+    requestBytes = measurements.getHandle("REQUEST-BYTES-" + operation);
+    responseBytes = measurements.getHandle("RESPONSE-BYTES-" + operation);
+    responseObjects = measurements.getHandle("RESPONSE-OBJECTS-" + operation);
+    firstByte = measurements.getHandle("TTFB-" + operation);
+    total = measurements.getHandle("TOTAL-" + operation);
+  }
+
+  /**
+   * Resolves the histograms of all operations up front, so the returned map is only read while requests are
+   * running, by any thread.
+   *
+   * @param measurements The measurements of the run.
+   * @param operations The names of the operations.
+   * @return The metrics by operation name.
+   */
+  public static Map<String, OperationMetrics> forOperations(Measurements measurements,
+                                                            Collection<String> operations) {
+    Map<String, OperationMetrics> metrics = new HashMap<>();
+    for (String operation : operations) {
+      metrics.put(operation, new OperationMetrics(measurements, operation));
+    }
+    return Collections.unmodifiableMap(metrics);
+  }
+
+  /**
+   * Measures one request.
+   *
+   * @param requestLength The bytes of the request body.
+   * @param response The scanner that read the response.
+   * @param start The {@link System#nanoTime()} the request was sent at.
+   * @param headers The nano time the response headers arrived at.
+   * @param end The nano time the response was read at.
+   */
+  public void measure(int requestLength, ResponseScanner response, long start, long headers, long end) {
+    requestBytes.measure(requestLength);
+    responseBytes.measure((int) Math.min(response.getBytes(), Integer.MAX_VALUE));
+    responseObjects.measure((int) Math.min(response.getObjects(), Integer.MAX_VALUE));
+    firstByte.measure((int) TimeUnit.NANOSECONDS.toMicros(headers - start));
+    total.measure((int) TimeUnit.NANOSECONDS.toMicros(end - start));
+  }
+}
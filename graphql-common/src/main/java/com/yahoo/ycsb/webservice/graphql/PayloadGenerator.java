@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How the random upper case strings of ${rand:length} slots are generated. Both write the letters straight into
+ * the request buffer, without a String or a shared Random in between.
+ */
+public enum PayloadGenerator {
+  /**
+   * A slice at a random offset of a block of random letters that is generated once, off the heap. Values repeat
+   * across calls, which costs a copy per value.
+   */
+  BLOCK {
+    @Override
+    public void write(RequestBuffer out, int length) {
+      int offset = out.claim(length);
+      byte[] buf = out.array();
+      ByteBuffer block = Block.VIEW.get();
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int done = 0; done < length;) {
+        int chunk = Math.min(length - done, Block.SIZE);
+        ((Buffer) block).position(random.nextInt(Block.SIZE - chunk + 1));
+        block.get(buf, offset + done, chunk);
+        done += chunk;
+      }
+    }
+  },
+
+  /**
+   * Fresh random letters for every value, eight letters from each random long.
+   */
+  UNIQUE {
+    @Override
+    public void write(RequestBuffer out, int length) {
+      int offset = out.claim(length);
+      byte[] buf = out.array();
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int i = 0;
+      for (; i + Long.BYTES <= length; i += Long.BYTES) {
+        long letters = letters(random.nextLong());
+        for (int b = 0; b < Long.BYTES; b++) {
+          buf[offset + i + b] = (byte) (letters >>> (b * Byte.SIZE));
+        }
+      }
+      long letters = letters(random.nextLong());
+      for (; i < length; i++) {
+        buf[offset + i] = (byte) letters;
+        letters >>>= Byte.SIZE;
+      }
+    }
+  };
+
+  /**
+   * The payload generator of a run: block or unique.
+   */
+  public static final String PAYLOAD_PROPERTY = "graphql.payload";
+  public static final String PAYLOAD_PROPERTY_DEFAULT = "block";
+
+  private static final long LOW_BYTES = 0x00FF00FF00FF00FFL;
+  private static final long LETTER_A = 0x4141414141414141L;
+
+  /**
+   * Writes a random upper case string, which never needs escaping in JSON.
+   *
+   * @param out The buffer to append the string to.
+   * @param length The number of letters.
+   */
+  public abstract void write(RequestBuffer out, int length);
+
+  // Maps each byte b of a random long to the letter 'A' + b * 26 / 256. The products of every other byte fit into
+  // the 16 bits of their lane, so both halves are scaled with one multiplication each.
+  static long letters(long random) {
+    long even = ((random & LOW_BYTES) * 26 >>> Byte.SIZE) & LOW_BYTES;
+    long odd = ((random >>> Byte.SIZE & LOW_BYTES) * 26 >>> Byte.SIZE) & LOW_BYTES;
+    return (even | odd << Byte.SIZE) + LETTER_A;
+  }
+
+  /**
+   * @return The payload generator configured in the properties.
+   * @throws IllegalArgumentException if the configured generator is unknown.
+   */
+  public static PayloadGenerator fromProperties(Properties props) {
+    String payload = props.getProperty(PAYLOAD_PROPERTY, PAYLOAD_PROPERTY_DEFAULT).trim();
+    for (PayloadGenerator value : values()) {
+      if (value.name().equalsIgnoreCase(payload)) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Unknown " + PAYLOAD_PROPERTY + " '" + payload
+        + "', expected block or unique.");
+  }
+
+  /**
+   * The letters of the block generator, only generated if it is used.
+   */
+  private static final class Block {
+    private static final int SIZE = 1 << 20;
+    private static final ByteBuffer LETTERS;
+
+    static {
+      ByteBuffer letters = ByteBuffer.allocateDirect(SIZE);
+      Random random = new Random();
+      while (letters.hasRemaining()) {
+        letters.put((byte) ('A' + random.nextInt(26)));
+      }
+      LETTERS = letters;
+    }
+
+    // Every thread reads through its own view, as reading moves the position.
+    private static final ThreadLocal<ByteBuffer> VIEW = new ThreadLocal<ByteBuffer>() {
+      @Override
+      protected ByteBuffer initialValue() {
+        return LETTERS.duplicate();
+      }
+    };
+
+    private Block() {
+    }
+  }
+}
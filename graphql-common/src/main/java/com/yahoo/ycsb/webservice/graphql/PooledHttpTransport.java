@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.measurements.Measurements;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A keep-alive HTTP client backed by a connection pool that is shared by all client threads.
+ * Every binding instance acquires the transport in init() and releases it in cleanup(); the pool
+ * is shut down once the last instance has released it.
+ */
+public final class PooledHttpTransport {
+  /**
+   * Maximum number of pooled connections to the endpoint. Defaults to the number of client threads.
+   */
+  public static final String MAX_PER_ROUTE_PROPERTY = "http.pool.maxperroute";
+
+  /**
+   * Maximum number of pooled connections overall. Defaults to http.pool.maxperroute.
+   */
+  public static final String MAX_TOTAL_PROPERTY = "http.pool.maxtotal";
+
+  /**
+   * Seconds after which idle pooled connections are evicted. 0 disables idle eviction.
+   */
+  public static final String IDLE_EVICTION_PROPERTY = "http.pool.idle";
+  public static final String IDLE_EVICTION_PROPERTY_DEFAULT = "30";
+
+  /**
+   * Maximum lifetime of a pooled connection in seconds. 0 keeps connections for as long as the server allows.
+   */
+  public static final String TTL_PROPERTY = "http.pool.ttl";
+  public static final String TTL_PROPERTY_DEFAULT = "0";
+
+  /**
+   * Whether to report connection lease and wait times as HTTP-POOL-LEASE and HTTP-POOL-WAIT.
+   */
+  public static final String METRICS_PROPERTY = "http.pool.metrics";
+  public static final String METRICS_PROPERTY_DEFAULT = "true";
+
+  private static PooledHttpTransport instance = null;
+  private static int references = 0;
+
+  private final CloseableHttpClient client;
+
+  private PooledHttpTransport(Properties props, RequestConfig requestConfig) {
+    int maxPerRoute = Integer.parseInt(props.getProperty(MAX_PER_ROUTE_PROPERTY,
+        props.getProperty(Client.THREAD_COUNT_PROPERTY, "1")));
+    int maxTotal = Integer.parseInt(props.getProperty(MAX_TOTAL_PROPERTY, String.valueOf(maxPerRoute)));
+    long idle = Long.parseLong(props.getProperty(IDLE_EVICTION_PROPERTY, IDLE_EVICTION_PROPERTY_DEFAULT));
+    long ttl = Long.parseLong(props.getProperty(TTL_PROPERTY, TTL_PROPERTY_DEFAULT));
+    boolean metrics = Boolean.parseBoolean(props.getProperty(METRICS_PROPERTY, METRICS_PROPERTY_DEFAULT));
+
+    PoolingHttpClientConnectionManager pool = ttl > 0 ?
+        new PoolingHttpClientConnectionManager(ttl, TimeUnit.SECONDS) :
+        new PoolingHttpClientConnectionManager();
+    pool.setDefaultMaxPerRoute(maxPerRoute);
+    pool.setMaxTotal(maxTotal);
+
+    HttpClientConnectionManager manager = metrics ?
+        new InstrumentedConnectionManager(pool, Measurements.getMeasurements()) : pool;
+    HttpClientBuilder builder = HttpClientBuilder.create()
+        .setDefaultRequestConfig(requestConfig)
+        .setConnectionManager(manager)
+        .evictExpiredConnections();
+    if (idle > 0) {
+      builder.evictIdleConnections(idle, TimeUnit.SECONDS);
+    }
+    client = builder.build();
+  }
+
+  /**
+   * Returns the shared transport, creating it on first use.
+   *
+   * @param props The properties of the run.
+   * @param requestConfig The default request configuration (timeouts) of the shared client.
+   */
+  public static synchronized PooledHttpTransport acquire(Properties props, RequestConfig requestConfig) {
+    if (instance == null) {
+      instance = new PooledHttpTransport(props, requestConfig);
+    }
+    references++;
+    return instance;
+  }
+
+  /**
+   * Gives up one reference to the shared transport. Closes the pool when no references remain.
+   */
+  public static synchronized void release(PooledHttpTransport transport) throws IOException {
+    if (transport == null || transport != instance) {
+      return;
+    }
+    if (--references == 0) {
+      instance = null;
+      transport.client.close();
+    }
+  }
+
+  public CloseableHttpClient getClient() {
+    return client;
+  }
+}
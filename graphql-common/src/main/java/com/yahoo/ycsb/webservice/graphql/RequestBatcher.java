@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.Status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Aggregates the request bodies of several operations into one JSON array that is sent in a
+ * single HTTP request. The answer is expected to be a JSON array with one result per operation,
+ * in request order, and every operation completes with the status of its own result.
+ *
+ * A batch is sent once it holds batchsize operations or, if fewer operations are submitted, when
+ * the linger time since its first operation expired. Each batcher belongs to one binding
+ * instance; the linger timer is the only other thread that touches it.
+ */
+public final class RequestBatcher {
+  /**
+   * The number of operations sent in one HTTP request.
+   */
+  public static final String BATCH_SIZE_PROPERTY = "graphql.batchsize";
+  public static final String BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The time in milliseconds an incomplete batch waits for more operations.
+   */
+  public static final String BATCH_LINGER_PROPERTY = "graphql.batch.linger";
+  public static final String BATCH_LINGER_PROPERTY_DEFAULT = "5";
+
+  /**
+   * Sends a batch and maps the results to the statuses of its operations.
+   */
+  public interface Sender {
+    /**
+     * @param body The JSON array of the request bodies.
+     * @param count The number of operations in the batch.
+     * @return The statuses of the operations in request order. The future must not fail.
+     */
+    CompletableFuture<List<Status>> send(byte[] body, int count);
+  }
+
+  private final Sender sender;
+  private final int batchSize;
+  private final long lingerMs;
+  private final RequestBuffer batch = new RequestBuffer();
+  private List<CompletableFuture<Status>> pending;
+  private DeadlineScheduler.Deadline linger;
+  // Identifies the open batch, so a linger timer that fires late cannot flush the batch after it.
+  private long generation;
+
+  public RequestBatcher(Sender sender, int batchSize, long lingerMs) {
+    this.sender = sender;
+    this.batchSize = batchSize;
+    this.lingerMs = lingerMs;
+    this.pending = new ArrayList<>(batchSize);
+  }
+
+  /**
+   * Adds the request body of an operation to the open batch.
+   *
+   * @return The status of the operation once its batch was answered.
+   */
+  public synchronized CompletableFuture<Status> add(byte[] content, int length) {
+    if (pending.isEmpty()) {
+      batch.reset();
+      batch.write('[');
+      final long current = generation;
+      linger = DeadlineScheduler.start(new Runnable() {
+        @Override
+        public void run() {
+          flush(current);
+        }
+      }, lingerMs);
+    } else {
+      batch.write(',');
+    }
+    batch.write(content, 0, length);
+    CompletableFuture<Status> status = new CompletableFuture<>();
+    pending.add(status);
+    if (pending.size() >= batchSize) {
+      flush(generation);
+    }
+    return status;
+  }
+
+  /**
+   * Sends the open batch without waiting for it to fill up.
+   */
+  public synchronized void flush() {
+    flush(generation);
+  }
+
+  private synchronized void flush(long expected) {
+    if (expected != generation || pending.isEmpty()) {
+      return;
+    }
+    generation++;
+    linger.cancel();
+    batch.write(']');
+    final List<CompletableFuture<Status>> operations = pending;
+    pending = new ArrayList<>(batchSize);
+    sender.send(batch.toByteArray(), operations.size()).whenComplete(new BiConsumer<List<Status>, Throwable>() {
+      @Override
+      public void accept(List<Status> statuses, Throwable failure) {
+        for (int i = 0; i < operations.size(); i++) {
+          operations.get(i).complete(failure == null && i < statuses.size() ? statuses.get(i) : Status.ERROR);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that request bodies are rendered into. Each binding instance owns one
+ * and resets it for every request, so steady state rendering does not allocate.
+ */
+public final class RequestBuffer {
+  private byte[] buf;
+  private int count;
+
+  public RequestBuffer() {
+    this(1024);
+  }
+
+  public RequestBuffer(int capacity) {
+    buf = new byte[capacity];
+  }
+
+  /**
+   * Discards the content while keeping the allocated capacity.
+   */
+  public void reset() {
+    count = 0;
+  }
+
+  public void write(int b) {
+    ensureCapacity(1);
+    buf[count++] = (byte) b;
+  }
+
+  public void write(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buf, count, bytes.length);
+    count += bytes.length;
+  }
+
+  public void write(byte[] bytes, int offset, int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, buf, count, length);
+    count += length;
+  }
+
+  /**
+   * Appends characters that are known to be ASCII, such as keys and generated field values.
+   */
+  public void writeAscii(CharSequence chars) {
+    int length = chars.length();
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      buf[count++] = (byte) chars.charAt(i);
+    }
+  }
+
+  /**
+   * Appends the first length characters of an array that are known to be ASCII, such as an encoded key.
+   */
+  public void writeAscii(char[] chars, int length) {
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      buf[count++] = (byte) chars[i];
+    }
+  }
+
+  /**
+   * Reserves space for length bytes and returns the offset they start at. The caller fills
+   * the returned range directly in {@link #array()}.
+   */
+  public int claim(int length) {
+    ensureCapacity(length);
+    int offset = count;
+    count += length;
+    return offset;
+  }
+
+  /**
+   * @return The backing array; only the first {@link #size()} bytes are valid.
+   */
+  public byte[] array() {
+    return buf;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * @return A copy of the content, for requests that outlive the next reset of this buffer.
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buf, count);
+  }
+
+  @Override
+  public String toString() {
+    return new String(buf, 0, count, StandardCharsets.UTF_8);
+  }
+
+  private void ensureCapacity(int length) {
+    if (count + length > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + length));
+    }
+  }
+}
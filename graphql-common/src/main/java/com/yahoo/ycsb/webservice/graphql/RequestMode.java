@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import java.util.Properties;
+
+/**
+ * How the parameters of an operation are sent to the GraphQL server.
+ */
+public enum RequestMode {
+  /**
+   * Parameter values are inlined into the query text, so every request is a new document.
+   */
+  INLINE,
+
+  /**
+   * A constant query text with a variables object.
+   */
+  VARIABLES,
+
+  /**
+   * Automatic Persisted Queries: the SHA-256 hash of the constant query text with a variables object.
+   * The query text itself is only sent until the server has registered it.
+   */
+  PERSISTED;
+
+  /**
+   * The request mode of a run: inline, variables or persisted.
+   */
+  public static final String REQUEST_MODE_PROPERTY = "graphql.requestmode";
+  public static final String REQUEST_MODE_PROPERTY_DEFAULT = "inline";
+
+  /**
+   * @return The request mode configured in the properties.
+   * @throws IllegalArgumentException if the configured mode is unknown.
+   */
+  public static RequestMode fromProperties(Properties props) {
+    String mode = props.getProperty(REQUEST_MODE_PROPERTY, REQUEST_MODE_PROPERTY_DEFAULT).trim();
+    for (RequestMode value : values()) {
+      if (value.name().equalsIgnoreCase(mode)) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Unknown " + REQUEST_MODE_PROPERTY + " '" + mode
+        + "', expected inline, variables or persisted.");
+  }
+}
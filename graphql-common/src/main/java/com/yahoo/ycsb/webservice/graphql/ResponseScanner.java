@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scans GraphQL responses as they are read, once and without decoding them, for the top-level errors of each
+ * result: the response object, or every object of a batch response array. Only the errors are kept, the data
+ * is skipped however large it is.
+ *
+ * The scanner is a tokenizer that only tracks strings, nesting and the keys of result objects, so it accepts
+ * input that is not valid JSON without complaint. One instance is reset and reused for every response.
+ */
+public final class ResponseScanner {
+  private static final byte[] ERRORS = {'e', 'r', 'r', 'o', 'r', 's'};
+  // The errors kept of a result; errors beyond are dropped.
+  private static final int MAX_ERRORS_LENGTH = 1 << 16;
+
+  private final byte[] chunk = new byte[8192];
+  private final RequestBuffer errors = new RequestBuffer(256);
+  private final RequestBuffer content = new RequestBuffer(0);
+  private final List<String> results = new ArrayList<>();
+  private boolean keepContent;
+
+  private long bytes;
+  private long objects;
+  private boolean array;
+  // The depth of result objects: 1 in a single response, 2 in a batch response. 0 until the first token.
+  private int resultDepth;
+  private int depth;
+  private boolean inString;
+  private boolean escape;
+  private boolean expectKey;
+  private boolean inKey;
+  private int keyMatch;
+  private boolean errorsKey;
+  private boolean inErrors;
+  private boolean hasErrors;
+
+  /**
+   * Prepares the scanner for the next response.
+   *
+   * @param keep Whether to keep the whole response for {@link #getContent()}, e.g. to log it.
+   */
+  public void reset(boolean keep) {
+    keepContent = keep;
+    content.reset();
+    errors.reset();
+    results.clear();
+    bytes = 0;
+    objects = 0;
+    array = false;
+    resultDepth = 0;
+    depth = 0;
+    inString = false;
+    escape = false;
+    expectKey = false;
+    inKey = false;
+    errorsKey = false;
+    inErrors = false;
+    hasErrors = false;
+  }
+
+  /**
+   * Scans a response stream to its end. The stream is not closed.
+   */
+  public void scan(InputStream stream) throws IOException {
+    int read;
+    while ((read = stream.read(chunk)) >= 0) {
+      scan(chunk, 0, read);
+    }
+  }
+
+  /**
+   * Scans the next part of a response.
+   */
+  public void scan(byte[] buf, int offset, int length) {
+    bytes += length;
+    if (keepContent) {
+      content.write(buf, offset, length);
+    }
+    for (int i = offset; i < offset + length; i++) {
+      byte b = buf[i];
+      if (inString) {
+        scanString(b);
+        continue;
+      }
+      if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        keepError(b);
+        continue;
+      }
+      if (resultDepth == 0) {
+        array = b == '[';
+        resultDepth = array ? 2 : 1;
+      }
+      if (inErrors && depth == resultDepth + 1 && b != ']') {
+        hasErrors = true;
+      }
+      switch (b) {
+      case '"':
+        keepError(b);
+        inString = true;
+        if (expectKey && depth == resultDepth) {
+          expectKey = false;
+          inKey = true;
+          keyMatch = 0;
+        }
+        break;
+      case '{':
+        keepError(b);
+        objects++;
+        if (++depth == resultDepth) {
+          expectKey = true;
+        }
+        break;
+      case '[':
+        keepError(b);
+        depth++;
+        break;
+      case '}':
+      case ']':
+        if (depth == resultDepth) {
+          inErrors = false;
+          if (b == '}') {
+            endResult();
+          }
+        }
+        keepError(b);
+        depth--;
+        break;
+      case ',':
+        if (depth == resultDepth) {
+          inErrors = false;
+          expectKey = true;
+        }
+        keepError(b);
+        break;
+      case ':':
+        if (errorsKey && depth == resultDepth) {
+          errorsKey = false;
+          inErrors = true;
+          errors.reset();
+        } else {
+          keepError(b);
+        }
+        break;
+      default:
+        keepError(b);
+        break;
+      }
+    }
+  }
+
+  private void scanString(byte b) {
+    keepError(b);
+    if (escape) {
+      escape = false;
+      keyMatch = -1;
+    } else if (b == '\\') {
+      escape = true;
+    } else if (b == '"') {
+      inString = false;
+      if (inKey) {
+        inKey = false;
+        errorsKey = keyMatch == ERRORS.length;
+      }
+    } else if (inKey && keyMatch >= 0) {
+      keyMatch = keyMatch < ERRORS.length && ERRORS[keyMatch] == b ? keyMatch + 1 : -1;
+    }
+  }
+
+  private void keepError(byte b) {
+    if (inErrors && errors.size() < MAX_ERRORS_LENGTH) {
+      errors.write(b);
+    }
+  }
+
+  private void endResult() {
+    results.add(hasErrors ? errors.toString().trim() : null);
+    errors.reset();
+    hasErrors = false;
+    errorsKey = false;
+    expectKey = false;
+  }
+
+  /**
+   * @return Whether the response is an array of results, as the response to a batch.
+   */
+  public boolean isArray() {
+    return array;
+  }
+
+  /**
+   * @return The number of result objects, 1 for a single response object.
+   */
+  public int getResults() {
+    return results.size();
+  }
+
+  /**
+   * @return The non-empty top-level errors of a result as JSON, or null if the result has none.
+   */
+  public String getErrors(int result) {
+    return results.get(result);
+  }
+
+  /**
+   * @return The errors of the first result, or null if it has none or the response has no result at all.
+   */
+  public String getErrors() {
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  /**
+   * @return The number of bytes scanned.
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return The number of JSON objects in the response.
+   */
+  public long getObjects() {
+    return objects;
+  }
+
+  /**
+   * @return The whole response if it was kept, see {@link #reset(boolean)}.
+   */
+  public String getContent() {
+    return content.toString();
+  }
+}
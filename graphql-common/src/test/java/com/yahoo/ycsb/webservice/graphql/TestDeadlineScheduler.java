@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link DeadlineScheduler}, with requests of concurrent client threads to stub servers.
+ */
+public class TestDeadlineScheduler {
+  private static final RequestConfig TIMEOUTS = RequestConfig.custom()
+      .setConnectTimeout(5000)
+      .setConnectionRequestTimeout(5000)
+      .setSocketTimeout(5000)
+      .build();
+
+  private GraphQLStubServer slow;
+  private GraphQLStubServer fast;
+  private PooledHttpTransport transport;
+  private ExecutorService clients;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    slow = new GraphQLStubServer(0, 3000);
+    fast = new GraphQLStubServer(0, 600);
+    slow.start();
+    fast.start();
+    Properties props = new Properties();
+    props.setProperty(PooledHttpTransport.MAX_PER_ROUTE_PROPERTY, "2");
+    props.setProperty(PooledHttpTransport.METRICS_PROPERTY, "false");
+    transport = PooledHttpTransport.acquire(props, TIMEOUTS);
+    clients = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    clients.shutdownNow();
+    PooledHttpTransport.release(transport);
+    slow.stop();
+    fast.stop();
+  }
+
+  /**
+   * The outcome of a request: whether its deadline expired, and the response body if there was one.
+   */
+  private static final class Outcome {
+    private boolean expired;
+    private String body;
+  }
+
+  private Future<Outcome> send(final GraphQLStubServer server, final long timeoutMs) {
+    return clients.submit(new Callable<Outcome>() {
+      @Override
+      public Outcome call() throws Exception {
+        HttpPost post = new HttpPost("http://127.0.0.1:" + server.getPort() + "/");
+        post.setEntity(new StringEntity("{\"query\":\"{result{id}}\"}"));
+        DeadlineScheduler.Deadline deadline = DeadlineScheduler.start(post, timeoutMs);
+        Outcome outcome = new Outcome();
+        try (CloseableHttpResponse response = transport.getClient().execute(post)) {
+          outcome.body = EntityUtils.toString(response.getEntity());
+        } catch (IOException e) {
+          // aborted
+        } finally {
+          deadline.cancel();
+        }
+        outcome.expired = deadline.isExpired();
+        return outcome;
+      }
+    });
+  }
+
+  @Test
+  public void expiredDeadlineAbortsOnlyItsOwnRequest() throws Exception {
+    // The slow request's deadline expires while the fast request is in flight.
+    Future<Outcome> slowRequest = send(slow, 200);
+    Future<Outcome> fastRequest = send(fast, 2000);
+
+    Outcome slowOutcome = slowRequest.get();
+    assertTrue(slowOutcome.expired);
+    assertEquals(slowOutcome.body, null);
+    Outcome fastOutcome = fastRequest.get();
+    assertFalse(fastOutcome.expired);
+    assertEquals(fastOutcome.body, "{\"data\":{\"result\":{\"id\":\"1\"}}}");
+
+    int timers = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals("graphql-deadline")) {
+        timers++;
+      }
+    }
+    assertEquals(timers, 1);
+  }
+}
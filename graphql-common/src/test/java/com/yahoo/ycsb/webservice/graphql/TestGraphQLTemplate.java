@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.webservice.graphql;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link GraphQLTemplate}.
+ */
+public class TestGraphQLTemplate {
+
+  @Test
+  public void testRenderKey() {
+    GraphQLTemplate template = GraphQLTemplate.compile("query{user(where:{id: ${key}}){firstName}}");
+    RequestBuffer out = new RequestBuffer(4);
+    template.render(out, "user42", null);
+    assertEquals(out.toString(), "{\"query\": \"query{user(where:{id: \\\"user42\\\"}){firstName}}\"}");
+
+    out.reset();
+    template.render(out, "user7", null);
+    assertEquals(out.toString(), "{\"query\": \"query{user(where:{id: \\\"user7\\\"}){firstName}}\"}");
+  }
+
+  @Test
+  public void testRenderRandom() {
+    GraphQLTemplate template = GraphQLTemplate.compile("mutation{createGroup(data:{topic: ${rand:10}}){id}}");
+    RequestBuffer out = new RequestBuffer();
+    template.render(out, "", null);
+    Matcher matcher = Pattern.compile("\\{\"query\": \"mutation\\{createGroup\\(data:\\{topic: \\\\\"([A-Z]*)\\\\\"\\}\\)"
+        + "\\{id\\}\\}\"\\}").matcher(out.toString());
+    assertTrue(matcher.matches(), out.toString());
+    assertEquals(matcher.group(1).length(), 10);
+  }
+
+  @Test
+  public void testEscapesLiterals() {
+    GraphQLTemplate template = GraphQLTemplate.compile("query{\n  search(text: \"a\\\\b\")}");
+    RequestBuffer out = new RequestBuffer();
+    template.render(out, "", null);
+    assertEquals(out.toString(), "{\"query\": \"query{   search(text: \\\"a\\\\\\\\b\\\")}\"}");
+  }
+
+  @Test
+  public void testRenderVariables() {
+    GraphQLTemplate template = GraphQLTemplate.compile(
+        "mutation{createPost(data:{id: ${key}, text: ${rand:3}, author: {connect: {id: ${key}}}}){id}}");
+    assertEquals(template.getVariablesDocument(), "mutation($key: ID!, $v0: String!){createPost(data:{id: $key, "
+        + "text: $v0, author: {connect: {id: $key}}}){id}}");
+    RequestBuffer out = new RequestBuffer();
+    template.render(out, RequestMode.VARIABLES, "post1", null);
+    assertTrue(out.toString().matches("\\{\"query\": \"mutation\\(\\$key: ID!, \\$v0: String!\\).*\", "
+        + "\"variables\": \\{\"key\": \"post1\", \"v0\": \"[A-Z]{3}\"\\}\\}"), out.toString());
+  }
+
+  @Test
+  public void testRenderPersisted() {
+    GraphQLTemplate template = GraphQLTemplate.compile("query{user(where:{id: ${key}}){firstName}}");
+    assertEquals(template.getHash().length(), 64);
+    String extensions = "\"extensions\": {\"persistedQuery\": {\"version\": 1, \"sha256Hash\": \""
+        + template.getHash() + "\"}}, ";
+    String full = "{\"query\": \"query($key: ID!){user(where:{id: $key}){firstName}}\", " + extensions
+        + "\"variables\": {\"key\": \"user1\"}}";
+
+    RequestBuffer out = new RequestBuffer();
+    template.render(out, RequestMode.PERSISTED, "user1", null);
+    assertEquals(out.toString(), full);
+
+    template.markPersisted();
+    out.reset();
+    template.render(out, RequestMode.PERSISTED, "user1", null);
+    String hashOnly = "{" + extensions + "\"variables\": {\"key\": \"user1\"}}";
+    assertEquals(out.toString(), hashOnly);
+    assertEquals(new String(template.withQuery(out.array(), out.size()), StandardCharsets.UTF_8), full);
+  }
+
+  @Test
+  public void testRenderWithoutSlots() {
+    GraphQLTemplate template = GraphQLTemplate.compile("{users{id}}");
+    RequestBuffer out = new RequestBuffer();
+    template.render(out, RequestMode.VARIABLES, "", null);
+    assertEquals(out.toString(), "{\"query\": \"{users{id}}\", \"variables\": {}}");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnknownSlot() {
+    GraphQLTemplate.compile("query{user(where:{id: ${id}}){firstName}}");
+  }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Test class for the HTTP/2 option of {@link AsyncHttpTransport}, against an embedded cleartext HTTP/2 server.
+ */
+public class TestHttp2Transport {
+  private static final RequestConfig TIMEOUTS = RequestConfig.custom()
+      .setConnectTimeout(5000)
+      .setConnectionRequestTimeout(5000)
+      .setSocketTimeout(5000)
+      .build();
+
+  private ScheduledExecutorService responder;
+  // The server answers every request with its body after this delay, so the requests overlap.
+  private volatile long delayMs;
+  private Set<SocketAddress> connections;
+  private AtomicInteger inflight;
+  private AtomicInteger maxInflight;
+  private AtomicInteger otherVersions;
+  private HttpAsyncServer server;
+  private String endpoint;
+
+  /**
+   * Echoes the body of a request after a delay, and records the connection and the concurrent requests.
+   */
+  private class EchoHandler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+    @Override
+    public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request, EntityDetails details,
+                                                                      HttpContext context) {
+      return new BasicRequestConsumer<>(new StringAsyncEntityConsumer());
+    }
+
+    @Override
+    public void handle(final Message<HttpRequest, String> message, final ResponseTrigger trigger,
+                       final HttpContext context) {
+      if (!HttpVersion.HTTP_2.equals(message.getHead().getVersion())) {
+        otherVersions.incrementAndGet();
+      }
+      connections.add(HttpCoreContext.adapt(context).getEndpointDetails().getRemoteAddress());
+      int current = inflight.incrementAndGet();
+      int max = maxInflight.get();
+      while (current > max && !maxInflight.compareAndSet(max, current)) {
+        max = maxInflight.get();
+      }
+      responder.schedule(new Runnable() {
+        @Override
+        public void run() {
+          inflight.decrementAndGet();
+          try {
+            trigger.submitResponse(
+                new BasicResponseProducer(200, message.getBody(), ContentType.APPLICATION_JSON), context);
+          } catch (HttpException | IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }, delayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @BeforeMethod
+  public void startServer() throws Exception {
+    responder = Executors.newSingleThreadScheduledExecutor();
+    delayMs = 50;
+    connections = ConcurrentHashMap.newKeySet();
+    inflight = new AtomicInteger();
+    maxInflight = new AtomicInteger();
+    otherVersions = new AtomicInteger();
+    server = H2ServerBootstrap.bootstrap()
+        .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+        .register("*", new EchoHandler())
+        .create();
+    server.start();
+    ListenerEndpoint listener = server.listen(new InetSocketAddress("127.0.0.1", 0)).get();
+    endpoint = "http://127.0.0.1:" + ((InetSocketAddress) listener.getAddress()).getPort() + "/";
+  }
+
+  @AfterMethod
+  public void stopServer() {
+    server.close(CloseMode.IMMEDIATE);
+    responder.shutdownNow();
+  }
+
+  private static Properties http2(int connections, int maxStreams) {
+    Properties p = new Properties();
+    p.setProperty(AsyncHttpTransport.HTTP_VERSION_PROPERTY, "2");
+    p.setProperty(AsyncHttpTransport.HTTP2_CONNECTIONS_PROPERTY, String.valueOf(connections));
+    p.setProperty(AsyncHttpTransport.HTTP2_MAX_STREAMS_PROPERTY, String.valueOf(maxStreams));
+    return p;
+  }
+
+  private HttpPost post(String body) {
+    HttpPost request = new HttpPost(endpoint);
+    request.setHeader("Content-Type", "application/json");
+    request.setEntity(new StringEntity(body, "UTF-8"));
+    return request;
+  }
+
+  @Test
+  public void testRequestsAreMultiplexed() throws Exception {
+    AsyncHttpTransport transport = AsyncHttpTransport.acquire(http2(2, 3), TIMEOUTS);
+    try {
+      List<CompletableFuture<HttpResponse>> responses = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        responses.add(transport.execute(post("{\"query\":\"" + i + "\"}"), 10000));
+      }
+      for (int i = 0; i < 40; i++) {
+        HttpResponse response = responses.get(i).join();
+        assertEquals(response.getStatusLine().getStatusCode(), 200);
+        assertEquals(response.getStatusLine().getProtocolVersion().getMajor(), 2);
+        assertEquals(EntityUtils.toString(response.getEntity()), "{\"query\":\"" + i + "\"}");
+      }
+    } finally {
+      AsyncHttpTransport.release(transport);
+    }
+    assertEquals(otherVersions.get(), 0);
+    assertEquals(connections.size(), 2, connections.toString());
+    assertTrue(maxInflight.get() <= 2 * 3, String.valueOf(maxInflight.get()));
+    assertTrue(maxInflight.get() > 1, String.valueOf(maxInflight.get()));
+  }
+
+  @Test
+  public void testWaitingRequestExpires() throws Exception {
+    delayMs = 500;
+    AsyncHttpTransport transport = AsyncHttpTransport.acquire(http2(1, 1), TIMEOUTS);
+    try {
+      CompletableFuture<HttpResponse> first = transport.execute(post("first"), 10000);
+      CompletableFuture<HttpResponse> second = transport.execute(post("second"), 100);
+      try {
+        second.join();
+        fail("The second request waits for the stream of the first one beyond its deadline.");
+      } catch (CompletionException e) {
+        assertTrue(e.getCause() instanceof TimeoutException, String.valueOf(e.getCause()));
+      }
+      assertEquals(EntityUtils.toString(first.join().getEntity()), "first");
+    } finally {
+      AsyncHttpTransport.release(transport);
+    }
+    assertEquals(maxInflight.get(), 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnknownVersionIsRejected() {
+    Properties p = new Properties();
+    p.setProperty(AsyncHttpTransport.HTTP_VERSION_PROPERTY, "3");
+    AsyncHttpTransport.isHttp2(p);
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link OperationMetrics}.
+ */
+public class TestOperationMetrics {
+
+  @Test
+  public void testMeasure() throws IOException {
+    Measurements measurements = new Measurements(new Properties());
+    OperationMetrics metrics =
+        OperationMetrics.forOperations(measurements, Arrays.asList("userById", "batch")).get("userById");
+    ResponseScanner scanner = new ResponseScanner();
+    scanner.reset(false);
+    byte[] response = "{\"data\":{\"user\":{\"id\":\"user1\"}}}".getBytes(StandardCharsets.UTF_8);
+    scanner.scan(response, 0, response.length);
+    metrics.measure(120, scanner, 1000000, 3000000, 8000000);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurements.exportMeasurements(exporter);
+    exporter.close();
+    String exported = out.toString("UTF-8");
+    assertTrue(exported.contains("[REQUEST-BYTES-userById], MinLatency(us), 120"), exported);
+    assertTrue(exported.contains("[RESPONSE-BYTES-userById], MinLatency(us), " + response.length), exported);
+    assertTrue(exported.contains("[RESPONSE-OBJECTS-userById], MinLatency(us), 3"), exported);
+    assertTrue(exported.contains("[TTFB-userById], MinLatency(us), 2000"), exported);
+    assertTrue(exported.contains("[TOTAL-userById], MinLatency(us), 7000"), exported);
+    // Operations without requests are not exported.
+    assertFalse(exported.contains("batch"), exported);
+  }
+}
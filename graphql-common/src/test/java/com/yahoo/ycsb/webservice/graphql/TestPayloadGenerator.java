@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link PayloadGenerator}.
+ */
+public class TestPayloadGenerator {
+
+  private static void assertLetters(RequestBuffer out, int from, int length) {
+    assertEquals(out.size(), from + length);
+    for (int i = from; i < out.size(); i++) {
+      byte b = out.array()[i];
+      assertTrue(b >= 'A' && b <= 'Z', "byte " + i + ": " + b);
+    }
+  }
+
+  @Test
+  public void testWritesLetters() {
+    // Lengths that are not multiples of 8 and longer than the block.
+    for (PayloadGenerator payload : PayloadGenerator.values()) {
+      for (int length : new int[] {0, 1, 7, 8, 200, 4099, (1 << 20) + 3}) {
+        RequestBuffer out = new RequestBuffer(4);
+        out.write('"');
+        payload.write(out, length);
+        assertLetters(out, 1, length);
+      }
+    }
+  }
+
+  @Test
+  public void testLettersCoverAlphabet() {
+    int[] counts = new int[26];
+    for (long i = 0; i < 4096; i++) {
+      long letters = PayloadGenerator.letters(i * 0x9E3779B97F4A7C15L);
+      for (int b = 0; b < Long.BYTES; b++) {
+        counts[(int) ((letters >>> (b * 8)) & 0xff) - 'A']++;
+      }
+    }
+    for (int count : counts) {
+      // 4096 * 8 / 26 letters each on average.
+      assertTrue(count > 1000 && count < 1600, String.valueOf(count));
+    }
+    assertEquals(PayloadGenerator.letters(0), 0x4141414141414141L);
+    assertEquals(PayloadGenerator.letters(-1), 0x5A5A5A5A5A5A5A5AL);
+  }
+
+  @Test
+  public void testFromProperties() {
+    Properties p = new Properties();
+    assertEquals(PayloadGenerator.fromProperties(p), PayloadGenerator.BLOCK);
+    p.setProperty(PayloadGenerator.PAYLOAD_PROPERTY, "Unique ");
+    assertEquals(PayloadGenerator.fromProperties(p), PayloadGenerator.UNIQUE);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnknownPayload() {
+    Properties p = new Properties();
+    p.setProperty(PayloadGenerator.PAYLOAD_PROPERTY, "random");
+    PayloadGenerator.fromProperties(p);
+  }
+}
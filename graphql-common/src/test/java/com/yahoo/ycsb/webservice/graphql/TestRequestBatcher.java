@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.webservice.graphql;
+
+import com.yahoo.ycsb.Status;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * Test class for {@link RequestBatcher}.
+ */
+public class TestRequestBatcher {
+
+  /**
+   * Records the batches and answers every operation with the status at its position.
+   */
+  private static class RecordingSender implements RequestBatcher.Sender {
+    private final List<String> batches = new ArrayList<>();
+    private final List<Status> statuses;
+
+    RecordingSender(Status... statuses) {
+      this.statuses = Arrays.asList(statuses);
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<Status>> send(byte[] body, int count) {
+      batches.add(new String(body, StandardCharsets.UTF_8));
+      return CompletableFuture.completedFuture(statuses.subList(0, count));
+    }
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testFullBatchIsSent() {
+    RecordingSender sender = new RecordingSender(Status.OK, Status.ERROR);
+    RequestBatcher batcher = new RequestBatcher(sender, 2, 60000);
+    CompletableFuture<Status> first = batcher.add(bytes("{\"query\": \"a\"}xx"), 14);
+    assertFalse(first.isDone());
+    CompletableFuture<Status> second = batcher.add(bytes("{\"query\": \"b\"}"), 14);
+    assertEquals(sender.batches, Arrays.asList("[{\"query\": \"a\"},{\"query\": \"b\"}]"));
+    assertEquals(first.join(), Status.OK);
+    assertEquals(second.join(), Status.ERROR);
+  }
+
+  @Test
+  public void testLingerSendsIncompleteBatch() throws Exception {
+    RecordingSender sender = new RecordingSender(Status.OK);
+    RequestBatcher batcher = new RequestBatcher(sender, 10, 10);
+    CompletableFuture<Status> status = batcher.add(bytes("{}"), 2);
+    assertEquals(status.get(5, TimeUnit.SECONDS), Status.OK);
+    assertEquals(sender.batches, Arrays.asList("[{}]"));
+  }
+
+  @Test
+  public void testMissingResultsFail() {
+    RequestBatcher batcher = new RequestBatcher(new RequestBatcher.Sender() {
+      @Override
+      public CompletableFuture<List<Status>> send(byte[] body, int count) {
+        return CompletableFuture.completedFuture(Arrays.asList(Status.OK));
+      }
+    }, 2, 60000);
+    CompletableFuture<Status> first = batcher.add(bytes("{}"), 2);
+    CompletableFuture<Status> second = batcher.add(bytes("{}"), 2);
+    assertEquals(first.join(), Status.OK);
+    assertEquals(second.join(), Status.ERROR);
+  }
+}
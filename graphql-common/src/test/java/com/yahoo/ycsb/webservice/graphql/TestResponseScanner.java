@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2019 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.webservice.graphql;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link ResponseScanner}.
+ */
+public class TestResponseScanner {
+
+  private static ResponseScanner scan(String response) {
+    ResponseScanner scanner = new ResponseScanner();
+    scanner.reset(false);
+    byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+    // One byte at a time, as every byte may end a part of the response.
+    for (int i = 0; i < bytes.length; i++) {
+      scanner.scan(bytes, i, 1);
+    }
+    return scanner;
+  }
+
+  @Test
+  public void testData() {
+    ResponseScanner scanner =
+        scan("{\"data\":{\"user\":{\"errors\":[{\"a\":1}],\"posts\":[{\"text\":\"\\\"errors\\\":[{\"}]}}}");
+    assertFalse(scanner.isArray());
+    assertEquals(scanner.getResults(), 1);
+    assertNull(scanner.getErrors());
+    assertEquals(scanner.getObjects(), 5);
+  }
+
+  @Test
+  public void testErrors() {
+    ResponseScanner scanner = scan("{\"data\" : null, \"errors\" : [ {\n  \"message\" : \"PersistedQueryNotFound\" } ]}");
+    assertEquals(scanner.getErrors(), "[ {\n  \"message\" : \"PersistedQueryNotFound\" } ]");
+
+    assertEquals(scan("{\"errors\":[{\"message\":\"a,}\\\"\"}],\"data\":{}}").getErrors(),
+        "[{\"message\":\"a,}\\\"\"}]");
+  }
+
+  @Test
+  public void testEmptyErrors() {
+    assertNull(scan("{\"data\":{},\"errors\":[ ]}").getErrors());
+    assertNull(scan("{\"errors\":null,\"data\":{}}").getErrors());
+    assertNull(scan("{\"errorsx\":[1],\"xerrors\":[1],\"err\\u006frs\":[1]}").getErrors());
+  }
+
+  @Test
+  public void testBatch() {
+    ResponseScanner scanner = scan(" [ {\"data\":{\"a\":[1,2]}} , {\"errors\":[{\"message\":\"x,]}\\\"\"}]} ]");
+    assertTrue(scanner.isArray());
+    assertEquals(scanner.getResults(), 2);
+    assertNull(scanner.getErrors(0));
+    assertEquals(scanner.getErrors(1), "[{\"message\":\"x,]}\\\"\"}]");
+  }
+
+  @Test
+  public void testNoJson() {
+    ResponseScanner scanner = scan("<html>Bad Gateway</html>");
+    assertEquals(scanner.getResults(), 0);
+    assertNull(scanner.getErrors());
+  }
+
+  @Test
+  public void testStreamAndReset() throws IOException {
+    ResponseScanner scanner = new ResponseScanner();
+    StringBuilder large = new StringBuilder("{\"data\":[");
+    for (int i = 0; i < 10000; i++) {
+      large.append(i == 0 ? "" : ",").append("{\"id\":\"").append(i).append("\"}");
+    }
+    large.append("],\"errors\":[{\"message\":\"late\"}]}");
+    byte[] bytes = large.toString().getBytes(StandardCharsets.UTF_8);
+    scanner.reset(true);
+    scanner.scan(new ByteArrayInputStream(bytes));
+    assertEquals(scanner.getBytes(), bytes.length);
+    assertEquals(scanner.getObjects(), 10002);
+    assertEquals(scanner.getErrors(), "[{\"message\":\"late\"}]");
+    assertEquals(scanner.getContent(), large.toString());
+
+    scanner.reset(false);
+    scanner.scan(new ByteArrayInputStream("{\"data\":{}}".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(scanner.getResults(), 1);
+    assertNull(scanner.getErrors());
+    assertEquals(scanner.getContent(), "");
+  }
+}
@@ -0,0 +1,34 @@
+#!/bin/bash
+#
+# Compares platform and virtual client threads for the GraphQL bindings against a local stub
+# endpoint. Requires Java 21 or newer for the virtual thread runs and a prior 'mvn package'.
+#
+# Usage: ./workloads/threadmodel_benchmark.sh [threadcount] [stub delay in ms] [seconds per run]
+
+threads=${1:-150}
+delay=${2:-20}
+seconds=${3:-60}
+port=18080
+
+workload="./workloads/workload_social"
+logfile="${workload}_threadmodel.log"
+java=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+${java} -cp ./graphql-common/target/classes com.yahoo.ycsb.webservice.graphql.GraphQLStubServer ${port} ${delay} &
+stub=$!
+trap "kill ${stub}" EXIT
+sleep 2
+
+printf "%-8s %-10s %8s %16s %14s %12s\n" binding threadmodel threads "throughput(ops/s)" "max mem(MB)" "max threads"
+for binding in prisma neo4j; do
+  for model in platform virtual; do
+    output=$(./bin/ycsb run ${binding} -s -P ${workload} -cp ./${binding}/target/classes \
+        -p http.endpoint=http://127.0.0.1:${port}/ -p threadcount=${threads} -p threadmodel=${model} \
+        -p http.pool.maxperroute=${threads} -p operationcount=0 -p maxexecutiontime=${seconds} \
+        -p measurement.trackjvm=true -p status.interval=1 2>&1 | tee -a ${logfile})
+    throughput=$(echo "${output}" | grep "\[OVERALL\], Throughput" | cut -d, -f3)
+    mem=$(echo "${output}" | grep "\[MAX_MEM_USED\]" | cut -d, -f3)
+    maxthreads=$(echo "${output}" | grep "\[MAX_THREADS\]" | cut -d, -f3)
+    printf "%-8s %-10s %8s %16s %14s %12s\n" ${binding} ${model} ${threads} ${throughput} ${mem} ${maxthreads}
+  done
+done